@@ -5,6 +5,7 @@ plugins {
     id("io.micronaut.aot") version "4.4.2"
     id("eclipse")
     id("com.google.protobuf") version "0.9.4"
+    id("me.champeau.jmh") version "0.7.2"
     jacoco
 }
 
@@ -15,6 +16,15 @@ repositories {
     mavenCentral()
 }
 
+// End-to-end load test: the application with in-process stand-ins for persistence and Redis, see ./gradlew loadTest
+val loadTest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations["loadTestImplementation"].extendsFrom(configurations.implementation.get())
+configurations["loadTestRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
 dependencies {
     annotationProcessor("io.micronaut:micronaut-http-validation")
     annotationProcessor("io.micronaut.serde:micronaut-serde-processor")
@@ -33,6 +43,10 @@ dependencies {
     
     // Kafka
     implementation("io.micronaut.kafka:micronaut-kafka")
+    implementation("io.netty:netty-common") // HashedWheelTimer for pending request expiry
+
+    // Caching
+    implementation("com.github.ben-manes.caffeine:caffeine:3.1.8")
     
     // JSON
     implementation("io.micronaut.serde:micronaut-serde-jackson")
@@ -40,6 +54,10 @@ dependencies {
     implementation("javax.annotation:javax.annotation-api:1.3.2")
     implementation("org.mindrot:jbcrypt:0.4")
     implementation("io.micronaut:micronaut-management")
+
+    // Metrics
+    implementation("io.micronaut.micrometer:micronaut-micrometer-core")
+    implementation("io.micronaut.micrometer:micronaut-micrometer-registry-prometheus")
     
     runtimeOnly("ch.qos.logback:logback-classic")
     runtimeOnly("org.yaml:snakeyaml")
@@ -58,6 +76,11 @@ dependencies {
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine")
     testImplementation("org.mockito:mockito-core:5.11.0")
     testImplementation("org.mockito:mockito-junit-jupiter:5.11.0")
+
+    // Load test
+    "loadTestAnnotationProcessor"(platform("io.micronaut.platform:micronaut-platform:${property("micronautVersion")}"))
+    "loadTestAnnotationProcessor"("io.micronaut:micronaut-inject-java")
+    "loadTestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
 }
 
 application {
@@ -118,6 +141,28 @@ tasks.test {
     }
 }
 
+// e.g. ./gradlew loadTest -PloadTest.args="--rate=2000 --duration=60s --mix=login:20,verify:75,register:5"
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Drives the gRPC API of an in-process instance and reports latency percentiles per RPC."
+    classpath = loadTest.runtimeClasspath
+    mainClass.set("com.globaldashboard.auth.loadtest.LoadTest")
+    args((project.findProperty("loadTest.args") as String?)?.split(" ") ?: listOf<String>())
+    maxHeapSize = "2g"
+}
+
+// Benchmarks live in src/jmh/java, run them with ./gradlew jmh and compare the JSON results between releases
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // e.g. ./gradlew jmh -Pjmh.includes=PasswordHashing
+    (project.findProperty("jmh.includes") as String?)?.let { includes.set(listOf(it)) }
+}
+
 tasks.jacocoTestReport {
     reports {
         xml.required.set(false)
@@ -0,0 +1,20 @@
+package com.globaldashboard.auth.benchmark;
+
+import io.micronaut.context.ApplicationContext;
+import java.util.Map;
+
+/**
+ * Application context holding the beans under measurement, without Kafka listeners or the gRPC server.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ApplicationContext start() {
+        return ApplicationContext.builder()
+                .environments("benchmark")
+                .properties(Map.of("kafka.enabled", false))
+                .start();
+    }
+}
@@ -0,0 +1,57 @@
+package com.globaldashboard.auth.benchmark;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.security.authentication.Authentication;
+import io.micronaut.security.token.jwt.generator.JwtTokenGenerator;
+import io.micronaut.security.token.jwt.validator.JwtTokenValidator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Mono;
+
+/**
+ * Token issue (Login) and signature plus expiration check (Verify) with the beans and secret the service uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    private ApplicationContext context;
+    private JwtTokenGenerator generator;
+    private JwtTokenValidator<?> validator;
+    private Map<String, Object> claims;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        generator = context.getBean(JwtTokenGenerator.class);
+        validator = context.getBean(JwtTokenValidator.class);
+        claims = Map.of("jti", "AAAAAAAAAAAAAAAAAAAAAA", "sub", "benchmark", "uid", "42", "roles", List.of("USER"));
+        token = generator.generateToken(claims).orElseThrow();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generate() {
+        return generator.generateToken(claims).orElseThrow();
+    }
+
+    @Benchmark
+    public Authentication validate() {
+        return Mono.from(validator.validateToken(token, null)).block();
+    }
+}
@@ -0,0 +1,76 @@
+package com.globaldashboard.auth.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Throughput of the user request producer at the settings of {@code kafka.producers.user-requests}: a burst of
+ * find requests is sent and acknowledged, as when many logins arrive at once. Needs a broker, the one of
+ * {@code KAFKA_BOOTSTRAP_SERVERS} or localhost:9092.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class KafkaProducerBenchmark {
+
+    private static final int BURST = 1000;
+    private static final String TOPIC = "benchmark.persistence.users";
+
+    @Param({"0", "5", "20"})
+    public int lingerMs;
+
+    @Param({"none", "lz4"})
+    public String compression;
+
+    private KafkaProducer<String, byte[]> producer;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        String servers = System.getenv().getOrDefault("KAFKA_BOOTSTRAP_SERVERS", "localhost:9092");
+        producer = new KafkaProducer<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, servers,
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, 65536,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, compression),
+                new StringSerializer(), new ByteArraySerializer());
+        // The size of a serialized UserFindRequest
+        payload = "{\"correlationId\":1234567890123,\"username\":\"benchmark-user\"}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        producer.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void sendBurst() throws Exception {
+        @SuppressWarnings("unchecked")
+        Future<RecordMetadata>[] sent = new Future[BURST];
+        for (int i = 0; i < BURST; i++) {
+            sent[i] = producer.send(new ProducerRecord<>(TOPIC, "user-" + i, payload));
+        }
+        for (Future<RecordMetadata> future : sent) {
+            future.get();
+        }
+    }
+}
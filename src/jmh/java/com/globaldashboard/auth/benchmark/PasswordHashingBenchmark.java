@@ -0,0 +1,47 @@
+package com.globaldashboard.auth.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of one BCrypt check (Login) and one hash (Register) per cost factor. Each step doubles the time. The service
+ * calibrates its cost at startup to the highest one hashing within {@code auth.password.target-hash-time} (250 ms),
+ * clamped to {@code min-cost} 10 and {@code max-cost} 16, so these results show which cost a host would pick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"4", "8", "10", "12", "14"})
+    private int cost;
+
+    private String salt;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        salt = BCrypt.gensalt(cost);
+        hash = BCrypt.hashpw(PASSWORD, salt);
+    }
+
+    @Benchmark
+    public boolean check() {
+        return BCrypt.checkpw(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public String hash() {
+        return BCrypt.hashpw(PASSWORD, salt);
+    }
+}
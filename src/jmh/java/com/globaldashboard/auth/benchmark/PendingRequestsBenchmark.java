@@ -0,0 +1,52 @@
+package com.globaldashboard.auth.benchmark;
+
+import com.globaldashboard.auth.client.PendingReply;
+import com.globaldashboard.auth.client.PendingRequestsConfiguration;
+import com.globaldashboard.auth.client.PendingRequestsRegistry;
+import com.globaldashboard.auth.event.user.UserEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * One request round trip through the registry (register, expiry scheduling, reply matching and completion) with all
+ * cores competing for the slots. Compare with {@code -t 1} for the uncontended cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(Threads.MAX)
+public class PendingRequestsBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private PendingRequestsRegistry registry;
+
+    @Setup
+    public void setUp() {
+        registry = new PendingRequestsRegistry(new PendingRequestsConfiguration(), Runnable::run,
+                new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Benchmark
+    public UserEvent registerAndComplete() {
+        PendingReply reply = registry.register(TIMEOUT);
+        registry.complete(new UserEvent(reply.correlationId(), 1L, "benchmark", null, null,
+                UserEvent.EventType.FOUND, null));
+        return reply.getNow(null);
+    }
+}
@@ -0,0 +1,84 @@
+package com.globaldashboard.auth.benchmark;
+
+import com.globaldashboard.auth.client.UserEventSerdeRegistry;
+import com.globaldashboard.auth.client.WireFormat;
+import com.globaldashboard.auth.client.WireFormatConfiguration;
+import com.globaldashboard.auth.event.user.UserEvent;
+import com.globaldashboard.auth.event.user.UserFindRequest;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.json.JsonMapper;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Encoding and decoding of the request sent and the reply consumed for every Login, with the Kafka serdes in each
+ * wire format. The record sizes are logged at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserEventSerdeBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserEventSerdeBenchmark.class);
+    private static final String TOPIC = "persistence.users.events";
+
+    @Param({"JSON", "PROTOBUF"})
+    public WireFormat format;
+
+    private ApplicationContext context;
+    private Serializer<UserFindRequest> requestSerializer;
+    private Serializer<UserEvent> eventSerializer;
+    private Deserializer<UserEvent> eventDeserializer;
+    private UserFindRequest request;
+    private UserEvent event;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        WireFormatConfiguration configuration = new WireFormatConfiguration();
+        configuration.setWireFormat(format);
+        UserEventSerdeRegistry registry = new UserEventSerdeRegistry(configuration, context.getBean(JsonMapper.class));
+        requestSerializer = registry.getSerde(UserFindRequest.class).serializer();
+        eventSerializer = registry.getSerde(UserEvent.class).serializer();
+        eventDeserializer = registry.getSerde(UserEvent.class).deserializer();
+        request = new UserFindRequest(123456789L, "jane.doe");
+        event = new UserEvent(123456789L, 42L, "jane.doe", "jane.doe@example.com",
+                "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5k8HH3nPOBJ6UdMBRDi1E2W", UserEvent.EventType.FOUND, null);
+        encoded = eventSerializer.serialize(TOPIC, event);
+        LOG.info("{}: request {} bytes, reply {} bytes", format,
+                requestSerializer.serialize(TOPIC, request).length, encoded.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() {
+        return requestSerializer.serialize(TOPIC, request);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return eventSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public UserEvent deserialize() {
+        return eventDeserializer.deserialize(TOPIC, encoded);
+    }
+}
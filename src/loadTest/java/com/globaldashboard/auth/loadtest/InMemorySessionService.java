@@ -0,0 +1,90 @@
+package com.globaldashboard.auth.loadtest;
+
+import com.globaldashboard.auth.service.SessionConfiguration;
+import com.globaldashboard.auth.service.SessionService;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session store standing in for Redis: same contract as the Redis one, with a simulated round trip per call.
+ */
+@Primary
+@Singleton
+@Requires(env = "loadtest")
+public class InMemorySessionService implements SessionService {
+
+    private record Session(String userId, long expiresAtNanos) {
+    }
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final Executor roundTrip;
+
+    public InMemorySessionService(SessionConfiguration sessionConfiguration, StandInConfiguration configuration) {
+        this.ttlNanos = sessionConfiguration.getTtl().toNanos();
+        long latency = configuration.getSessionLatency().toNanos();
+        this.roundTrip = latency > 0
+                ? CompletableFuture.delayedExecutor(latency, TimeUnit.NANOSECONDS)
+                : Runnable::run;
+    }
+
+    @Override
+    public CompletionStage<String> createSessionAsync(String username, String userId) {
+        return CompletableFuture.supplyAsync(() -> {
+            String sessionId = UUID.randomUUID().toString();
+            sessions.put(sessionId, new Session(userId, System.nanoTime() + ttlNanos));
+            sessionsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+            return sessionId;
+        }, roundTrip);
+    }
+
+    @Override
+    public CompletionStage<Boolean> validateSessionAsync(String sessionId) {
+        return CompletableFuture.supplyAsync(() -> {
+            Session session = sessions.get(sessionId);
+            if (session == null || session.expiresAtNanos() - System.nanoTime() < 0) {
+                return false;
+            }
+            sessions.replace(sessionId, session, new Session(session.userId(), System.nanoTime() + ttlNanos));
+            return true;
+        }, roundTrip);
+    }
+
+    @Override
+    public CompletionStage<Void> invalidateSessionAsync(String sessionId) {
+        return CompletableFuture.runAsync(() -> sessions.remove(sessionId), roundTrip);
+    }
+
+    @Override
+    public CompletionStage<List<String>> listSessionsAsync(String userId) {
+        return CompletableFuture.supplyAsync(() -> sessionsByUser.getOrDefault(userId, Set.of()).stream()
+                .filter(sessions::containsKey)
+                .toList(), roundTrip);
+    }
+
+    @Override
+    public CompletionStage<Integer> invalidateUserSessionsAsync(String userId) {
+        return CompletableFuture.supplyAsync(() -> {
+            Set<String> ids = sessionsByUser.remove(userId);
+            if (ids == null) {
+                return 0;
+            }
+            int revoked = 0;
+            for (String sessionId : ids) {
+                revoked += sessions.remove(sessionId) != null ? 1 : 0;
+            }
+            return revoked;
+        }, roundTrip);
+    }
+}
@@ -0,0 +1,249 @@
+package com.globaldashboard.auth.loadtest;
+
+import com.globaldashboard.auth.Application;
+import com.globaldashboard.auth.proto.AuthServiceGrpc;
+import com.globaldashboard.auth.proto.LoginRequest;
+import com.globaldashboard.auth.proto.LoginResponse;
+import com.globaldashboard.auth.proto.RegisterRequest;
+import com.globaldashboard.auth.proto.VerifyRequest;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.runtime.Micronaut;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * Open-loop load test of {@code AuthService}: requests are sent at a fixed rate whatever the response times, and each
+ * latency is measured from the time the request was due rather than sent, so a stalled server shows up in the
+ * percentiles instead of silently lowering the offered load.
+ * <p>
+ * Options, all optional: {@code --rate=1000} (requests per second), {@code --duration=30s}, {@code --warmup=10s},
+ * {@code --users=1000}, {@code --mix=login:20,verify:75,register:5}. Any other {@code --key=value} is application
+ * configuration, e.g. {@code --loadtest.reply-delay=20ms} or {@code --auth.execution.virtual-threads=true} to
+ * compare execution modes on the real endpoint path.
+ */
+public final class LoadTest {
+
+    enum Rpc {
+        LOGIN, VERIFY, REGISTER
+    }
+
+    private static final String PASSWORD = "load-test-password";
+
+    private final AuthServiceGrpc.AuthServiceFutureStub stub;
+    private final Map<Rpc, Recorder> latencies = new EnumMap<>(Rpc.class);
+    private final Map<Rpc, AtomicLong> errors = new EnumMap<>(Rpc.class);
+    private final List<String> tokens = new ArrayList<>();
+    private final AtomicLong registrations = new AtomicLong();
+    private final int users;
+
+    private LoadTest(AuthServiceGrpc.AuthServiceFutureStub stub, int users) {
+        this.stub = stub;
+        this.users = users;
+        for (Rpc rpc : Rpc.values()) {
+            latencies.put(rpc, new Recorder(3));
+            errors.put(rpc, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        Duration duration = duration(options.getOrDefault("duration", "30s"));
+        Duration warmup = duration(options.getOrDefault("warmup", "10s"));
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        Map<Rpc, Integer> mix = mix(options.getOrDefault("mix", "login:20,verify:75,register:5"));
+
+        try (ApplicationContext context = Micronaut.build(args)
+                .mainClass(Application.class)
+                .environments("loadtest")
+                .start()) {
+            // One hash for every seeded user, computing a thousand of them would take longer than the run
+            String passwordHash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+            StandInPersistence persistence = context.getBean(StandInPersistence.class);
+            for (int i = 0; i < users; i++) {
+                persistence.seed(username(i), passwordHash);
+            }
+
+            int port = context.getProperty("grpc.server.port", Integer.class, 50051);
+            ManagedChannel channel = ManagedChannelBuilder.forAddress("localhost", port).usePlaintext().build();
+            try {
+                LoadTest test = new LoadTest(AuthServiceGrpc.newFutureStub(channel), users);
+                test.loginUsers(Math.min(users, 200));
+
+                System.out.printf("Warming up for %s at %d req/s%n", warmup, rate);
+                test.run(rate, warmup, mix);
+                test.reset();
+
+                System.out.printf("Measuring for %s at %d req/s, mix %s%n", duration, rate, mix);
+                long start = System.nanoTime();
+                test.run(rate, duration, mix);
+                test.report(System.nanoTime() - start);
+            } finally {
+                channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Logs users in once so that Verify has valid tokens to check.
+     */
+    private void loginUsers(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            LoginResponse response = stub.login(LoginRequest.newBuilder()
+                    .setUsername(username(i))
+                    .setPassword(PASSWORD)
+                    .build()).get(30, TimeUnit.SECONDS);
+            tokens.add(response.getAccessToken());
+        }
+    }
+
+    private void run(int rate, Duration duration, Map<Rpc, Integer> mix) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        AtomicLong inFlight = new AtomicLong();
+
+        for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.incrementAndGet();
+            send(pick(mix, totalWeight), due, inFlight);
+        }
+        // Requests still running belong to this phase
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void send(Rpc rpc, long due, AtomicLong inFlight) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ListenableFuture<?> call = switch (rpc) {
+            case LOGIN -> stub.login(LoginRequest.newBuilder()
+                    .setUsername(username(random.nextInt(users)))
+                    .setPassword(PASSWORD)
+                    .build());
+            case VERIFY -> stub.verify(VerifyRequest.newBuilder()
+                    .setToken(tokens.get(random.nextInt(tokens.size())))
+                    .build());
+            case REGISTER -> stub.register(RegisterRequest.newBuilder()
+                    .setUsername("load-test-new-" + registrations.incrementAndGet() + "-" + due)
+                    .setEmail("new@loadtest")
+                    .setPassword(PASSWORD)
+                    .build());
+        };
+        Futures.addCallback(call, new FutureCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+                done(null);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                done(error);
+            }
+
+            private void done(Throwable error) {
+                latencies.get(rpc).recordValue(Math.max(0, (System.nanoTime() - due) / 1000));
+                if (error != null) {
+                    errors.get(rpc).incrementAndGet();
+                }
+                inFlight.decrementAndGet();
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private void reset() {
+        latencies.values().forEach(Recorder::reset);
+        errors.values().forEach(counter -> counter.set(0));
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%-9s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+                "rpc", "count", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Rpc rpc : Rpc.values()) {
+            Histogram histogram = latencies.get(rpc).getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "%-9s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    rpc.name().toLowerCase(Locale.ROOT), histogram.getTotalCount(),
+                    histogram.getTotalCount() / seconds, errors.get(rpc).get(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+    }
+
+    private static Rpc pick(Map<Rpc, Integer> mix, int totalWeight) {
+        int draw = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Rpc, Integer> entry : mix.entrySet()) {
+            draw -= entry.getValue();
+            if (draw < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty request mix");
+    }
+
+    private static String username(int index) {
+        return "load-test-user-" + index;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static Map<Rpc, Integer> mix(String value) {
+        Map<Rpc, Integer> mix = new EnumMap<>(Rpc.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(Rpc.valueOf(weight[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration " + value);
+        };
+    }
+}
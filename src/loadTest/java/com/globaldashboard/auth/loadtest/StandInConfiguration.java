@@ -0,0 +1,33 @@
+package com.globaldashboard.auth.loadtest;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+
+@ConfigurationProperties("loadtest")
+public class StandInConfiguration {
+
+    private Duration replyDelay = Duration.ofMillis(5);
+    private Duration sessionLatency = Duration.ZERO;
+
+    /**
+     * @return time the stand-in persistence service takes to answer a request
+     */
+    public Duration getReplyDelay() {
+        return replyDelay;
+    }
+
+    public void setReplyDelay(Duration replyDelay) {
+        this.replyDelay = replyDelay;
+    }
+
+    /**
+     * @return simulated round trip of every session store call
+     */
+    public Duration getSessionLatency() {
+        return sessionLatency;
+    }
+
+    public void setSessionLatency(Duration sessionLatency) {
+        this.sessionLatency = sessionLatency;
+    }
+}
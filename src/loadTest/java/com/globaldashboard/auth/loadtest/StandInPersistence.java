@@ -0,0 +1,98 @@
+package com.globaldashboard.auth.loadtest;
+
+import com.globaldashboard.auth.client.UserReplyConsumer;
+import com.globaldashboard.auth.client.UserRequestProducer;
+import com.globaldashboard.auth.event.user.UserCreateRequest;
+import com.globaldashboard.auth.event.user.UserEvent;
+import com.globaldashboard.auth.event.user.UserFindRequest;
+import com.globaldashboard.auth.event.user.UserPasswordUpdateRequest;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+/**
+ * Plays the persistence service: answers the requests of {@code persistence.users} after the configured delay, and
+ * passes the replies through the {@link UserReplyConsumer} code that handles {@code persistence.users.events}. Only
+ * the broker hops are skipped (Kafka is disabled in this environment), their cost is part of
+ * {@code loadtest.reply-delay}.
+ */
+@Singleton
+@Replaces(UserRequestProducer.class)
+@Requires(env = "loadtest")
+public class StandInPersistence implements UserRequestProducer {
+
+    private record User(long id, String email, String passwordHash) {
+    }
+
+    private final UserReplyConsumer replies;
+    private final long replyDelayNanos;
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "persistence-stand-in");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StandInPersistence(UserReplyConsumer replies, StandInConfiguration configuration) {
+        this.replies = replies;
+        this.replyDelayNanos = configuration.getReplyDelay().toNanos();
+    }
+
+    /**
+     * Adds a user without going through Register, for logins and verifications of the run.
+     */
+    public void seed(String username, String passwordHash) {
+        users.put(username, new User(ids.incrementAndGet(), username + "@loadtest", passwordHash));
+    }
+
+    @Override
+    public CompletableFuture<RecordMetadata> sendFindRequest(String username, UserFindRequest request,
+            byte[] replyTopic, byte[] replyPartition) {
+        User user = users.get(username);
+        return reply(user != null
+                ? new UserEvent(request.correlationId(), user.id(), username, user.email(), user.passwordHash(),
+                        UserEvent.EventType.FOUND, null)
+                : new UserEvent(request.correlationId(), null, username, null, null, UserEvent.EventType.NOT_FOUND,
+                        null));
+    }
+
+    @Override
+    public CompletableFuture<RecordMetadata> sendCreateRequest(String username, UserCreateRequest request,
+            byte[] replyTopic, byte[] replyPartition) {
+        User user = new User(ids.incrementAndGet(), request.email(), request.passwordHash());
+        return reply(users.putIfAbsent(username, user) == null
+                ? new UserEvent(request.correlationId(), user.id(), username, user.email(), null,
+                        UserEvent.EventType.CREATED, null)
+                : new UserEvent(request.correlationId(), null, username, null, null, UserEvent.EventType.ERROR,
+                        "Username already taken"));
+    }
+
+    @Override
+    public CompletableFuture<RecordMetadata> sendPasswordUpdateRequest(String username,
+            UserPasswordUpdateRequest request) {
+        users.computeIfPresent(username, (name, user) -> user.passwordHash().equals(request.previousPasswordHash())
+                ? new User(user.id(), user.email(), request.passwordHash())
+                : user);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private CompletableFuture<RecordMetadata> reply(UserEvent event) {
+        scheduler.schedule(() -> replies.receive(event), replyDelayNanos, TimeUnit.NANOSECONDS);
+        return CompletableFuture.completedFuture(null);
+    }
+}
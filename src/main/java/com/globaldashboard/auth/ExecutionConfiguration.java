@@ -0,0 +1,21 @@
+package com.globaldashboard.auth;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+@ConfigurationProperties("auth.execution")
+public class ExecutionConfiguration {
+
+    private boolean virtualThreads;
+
+    /**
+     * @return whether gRPC calls and Kafka reply completions run on virtual threads instead of platform thread pools.
+     * BCrypt stays on its bounded platform pool either way
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+}
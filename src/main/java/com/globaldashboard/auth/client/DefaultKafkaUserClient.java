@@ -3,32 +3,157 @@ package com.globaldashboard.auth.client;
 import com.globaldashboard.auth.event.user.UserEvent;
 import com.globaldashboard.auth.event.user.UserFindRequest;
 import com.globaldashboard.auth.event.user.UserCreateRequest;
+import com.globaldashboard.auth.event.user.UserPasswordUpdateRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
 
+@Slf4j
 @Singleton
 public class DefaultKafkaUserClient implements KafkaUserClient {
 
+    private static final List<String> OPERATIONS = List.of("find", "create");
+
     private final UserRequestProducer producer;
     private final PendingRequestsRegistry registry;
+    private final PendingRequestsConfiguration configuration;
+    private final UserCredentialCache credentialCache;
+    private final SingleFlight<String, UserEvent> lookups;
+    private final Map<String, Map<String, Timer>> roundTrips;
+    private final ReplyAddress replyAddress;
 
-    public DefaultKafkaUserClient(UserRequestProducer producer, PendingRequestsRegistry registry) {
+    public DefaultKafkaUserClient(UserRequestProducer producer, PendingRequestsRegistry registry,
+            PendingRequestsConfiguration configuration, UserCredentialCache credentialCache,
+            MeterRegistry meterRegistry, ReplyAddress replyAddress, Optional<UserReplyListener> replyListener) {
+        // The reply listener (absent without Kafka) is only injected to have it positioned before the first request
         this.producer = producer;
+        this.replyAddress = replyAddress;
         this.registry = registry;
+        this.configuration = configuration;
+        this.credentialCache = credentialCache;
+        this.roundTrips = roundTripTimers(meterRegistry);
+        this.lookups = new SingleFlight<>(Counter.builder("auth.kafka.find.coalesced")
+                .description("User lookups served by a request already in flight for the same username")
+                .register(meterRegistry));
+        Gauge.builder("auth.kafka.find.in-flight", lookups, SingleFlight::size)
+                .description("Distinct usernames with a lookup in flight")
+                .register(meterRegistry);
     }
 
     @Override
     public CompletableFuture<UserEvent> findUser(String username) {
-        CompletableFuture<UserEvent> future = registry.register(username);
-        producer.sendFindRequest(username, new UserFindRequest(username));
-        // Add timeout logic ideally, but keeping it simple for now
+        UserEvent cached = credentialCache.get(username);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        // Concurrent lookups of the same username share one Kafka request
+        return lookups.execute(username, this::sendFindRequest);
+    }
+
+    private CompletableFuture<UserEvent> sendFindRequest(String username) {
+        PendingReply future = registry.register(configuration.getFindTimeout());
+        timeRoundTrip("find", future);
+        send(future, () -> producer.sendFindRequest(username, new UserFindRequest(future.correlationId(), username),
+                replyAddress.topicHeader(), replyAddress.partitionHeader()));
         return future;
     }
 
     @Override
     public CompletableFuture<UserEvent> createUser(String username, String email, String passwordHash) {
-        CompletableFuture<UserEvent> future = registry.register(username);
-        producer.sendCreateRequest(username, new UserCreateRequest(username, email, passwordHash));
+        PendingReply future = registry.register(configuration.getCreateTimeout());
+        timeRoundTrip("create", future);
+        send(future, () -> producer.sendCreateRequest(username,
+                new UserCreateRequest(future.correlationId(), username, email, passwordHash),
+                replyAddress.topicHeader(), replyAddress.partitionHeader()));
         return future;
     }
+
+    @Override
+    public void updatePassword(Long userId, String username, String previousPasswordHash, String passwordHash) {
+        // The credential cache is left alone: it takes the new hash from the UPDATED event, once persistence stored it
+        producer.sendPasswordUpdateRequest(username,
+                        new UserPasswordUpdateRequest(userId, username, passwordHash, previousPasswordHash))
+                .whenComplete((metadata, error) -> {
+                    if (error != null) {
+                        log.warn("Could not send the rehashed password of {}: {}", username, error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Hands the request to the producer and fails the pending reply as soon as the send fails, rather than letting it
+     * wait for a reply that cannot come. The callback runs on the producer I/O thread, so the registry only releases
+     * the request there and fails the future on the {@link ReplyCompletionExecutor}.
+     */
+    private void send(PendingReply reply, Supplier<CompletableFuture<RecordMetadata>> send) {
+        CompletableFuture<RecordMetadata> sent;
+        try {
+            sent = send.get();
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((metadata, error) -> {
+            if (error != null) {
+                registry.fail(reply, new PersistenceUnavailableException(
+                        "Could not send request " + reply.correlationId() + " to persistence", error));
+            }
+        });
+    }
+
+    /**
+     * Records the time from sending a request to its reply, or to its failure, tagged with the reply type.
+     */
+    private void timeRoundTrip(String operation, PendingReply reply) {
+        Map<String, Timer> timers = roundTrips.get(operation);
+        long start = System.nanoTime();
+        reply.whenComplete((event, error) -> timers.get(outcome(event, error))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Registers one timer per operation and outcome up front, completions only look them up.
+     */
+    private static Map<String, Map<String, Timer>> roundTripTimers(MeterRegistry meterRegistry) {
+        List<String> outcomes = new ArrayList<>(List.of("timeout", "error"));
+        for (UserEvent.EventType type : UserEvent.EventType.values()) {
+            outcomes.add(type.name().toLowerCase(Locale.ROOT));
+        }
+        Map<String, Map<String, Timer>> timers = new HashMap<>();
+        for (String operation : OPERATIONS) {
+            Map<String, Timer> byOutcome = new HashMap<>();
+            for (String outcome : outcomes) {
+                byOutcome.put(outcome, Timer.builder("auth.kafka.request.duration")
+                        .description("Time from a request to persistence until its reply")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+            timers.put(operation, Map.copyOf(byOutcome));
+        }
+        return Map.copyOf(timers);
+    }
+
+    private static String outcome(UserEvent event, Throwable error) {
+        if (error == null) {
+            return event.type().name().toLowerCase(Locale.ROOT);
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof TimeoutException ? "timeout" : "error";
+    }
 }
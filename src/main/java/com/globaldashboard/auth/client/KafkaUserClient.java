@@ -7,4 +7,10 @@ public interface KafkaUserClient {
     CompletableFuture<UserEvent> findUser(String username);
 
     CompletableFuture<UserEvent> createUser(String username, String email, String passwordHash);
+
+    /**
+     * Replaces the user's password hash if it is still {@code previousPasswordHash}, without waiting for persistence
+     * to apply it. Caches only see the new hash once persistence publishes its {@code UPDATED} event.
+     */
+    void updatePassword(Long userId, String username, String previousPasswordHash, String passwordHash);
 }
@@ -0,0 +1,33 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.user.UserEvent;
+import io.netty.util.Timeout;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Future of a request waiting for its {@link UserEvent} reply, tagged with the correlation id sent to Kafka.
+ */
+public final class PendingReply extends CompletableFuture<UserEvent> {
+
+    private final long correlationId;
+    private volatile Timeout expiry;
+
+    PendingReply(long correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public long correlationId() {
+        return correlationId;
+    }
+
+    void expireWith(Timeout expiry) {
+        this.expiry = expiry;
+    }
+
+    void cancelExpiry() {
+        Timeout timeout = expiry;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.globaldashboard.auth.client;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+
+@ConfigurationProperties("auth.kafka.pending")
+public class PendingRequestsConfiguration {
+
+    private Duration findTimeout = Duration.ofSeconds(5);
+    private Duration createTimeout = Duration.ofSeconds(5);
+    private int maxPending = 10_000;
+    private Duration tickDuration = Duration.ofMillis(100);
+
+    /**
+     * @return how long a find request waits for its reply before failing
+     */
+    public Duration getFindTimeout() {
+        return findTimeout;
+    }
+
+    public void setFindTimeout(Duration findTimeout) {
+        this.findTimeout = findTimeout;
+    }
+
+    /**
+     * @return how long a create request waits for its reply before failing
+     */
+    public Duration getCreateTimeout() {
+        return createTimeout;
+    }
+
+    public void setCreateTimeout(Duration createTimeout) {
+        this.createTimeout = createTimeout;
+    }
+
+    /**
+     * @return maximum number of requests waiting for a reply, further requests are rejected
+     */
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * @return resolution of the expiry timer wheel
+     */
+    public Duration getTickDuration() {
+        return tickDuration;
+    }
+
+    public void setTickDuration(Duration tickDuration) {
+        this.tickDuration = tickDuration;
+    }
+}
@@ -1,31 +1,189 @@
 package com.globaldashboard.auth.client;
 
 import com.globaldashboard.auth.event.user.UserEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Pending request/reply futures keyed by correlation id.
+ * <p>
+ * Correlation ids come from a sequence and each one owns the slot {@code id & mask} of a fixed array, so
+ * registering and completing a request is a CAS on a preallocated slot rather than a map insert. Requests whose
+ * reply never arrives are failed by a hashed wheel timer, and the number of pending requests is capped.
+ * <p>
+ * Whichever thread resolves a request, the reply poll thread, the timer or the producer I/O thread, the future is
+ * completed on the {@link ReplyCompletionExecutor} so that the stages waiting on it never run there.
+ */
 @Slf4j
 @Singleton
 public class PendingRequestsRegistry {
-    private final Map<String, CompletableFuture<UserEvent>> pendingRequests = new ConcurrentHashMap<>();
 
-    public CompletableFuture<UserEvent> register(String username) {
-        CompletableFuture<UserEvent> future = new CompletableFuture<>();
-        pendingRequests.put(username, future);
-        return future;
+    private final AtomicReferenceArray<PendingReply> slots;
+    private final int mask;
+    private final int maxPending;
+    // Random start so that replies meant for another instance are unlikely to match one of our ids
+    private final AtomicLong sequence = new AtomicLong(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE >> 1));
+    private final AtomicInteger size = new AtomicInteger();
+    private final Timer timer;
+    private final Executor completions;
+    private final Counter expired;
+    private final Counter rejected;
+    private final Counter failed;
+
+    @Inject
+    public PendingRequestsRegistry(PendingRequestsConfiguration configuration, ReplyCompletionExecutor completions,
+            MeterRegistry meterRegistry) {
+        this(configuration, (Executor) completions, meterRegistry);
+    }
+
+    public PendingRequestsRegistry(PendingRequestsConfiguration configuration, Executor completions,
+            MeterRegistry meterRegistry) {
+        this.completions = completions;
+        this.maxPending = configuration.getMaxPending();
+        // Twice the cap keeps probing for a free slot short
+        int capacity = Integer.highestOneBit(Math.max(2, maxPending * 2 - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.timer = new HashedWheelTimer(runnable -> {
+            Thread thread = new Thread(runnable, "pending-requests-expiry");
+            thread.setDaemon(true);
+            return thread;
+        }, configuration.getTickDuration().toNanos(), TimeUnit.NANOSECONDS);
+
+        Gauge.builder("auth.kafka.pending.size", size, AtomicInteger::get)
+                .description("User requests waiting for a reply")
+                .register(meterRegistry);
+        this.expired = Counter.builder("auth.kafka.pending.expired")
+                .description("User requests failed because no reply arrived in time")
+                .register(meterRegistry);
+        this.failed = Counter.builder("auth.kafka.pending.failed")
+                .description("User requests failed because they could not be sent")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.kafka.pending.rejected")
+                .description("User requests rejected because too many were pending")
+                .register(meterRegistry);
     }
 
-    public void complete(String username, UserEvent event) {
-        CompletableFuture<UserEvent> future = pendingRequests.remove(username);
-        if (future != null) {
-            future.complete(event);
+    /**
+     * Registers a new request. The returned future fails with a {@link TimeoutException} if no reply arrives within
+     * {@code timeout}.
+     *
+     * @throws RejectedExecutionException if too many requests are already pending
+     */
+    public PendingReply register(Duration timeout) {
+        // Reserve the place first so that concurrent callers cannot overshoot the cap
+        if (size.incrementAndGet() > maxPending) {
+            size.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("Too many pending user requests");
+        }
+
+        for (int attempt = 0; attempt < slots.length(); attempt++) {
+            long correlationId = sequence.getAndIncrement();
+            int index = (int) (correlationId & mask);
+            if (slots.get(index) != null) {
+                // Slot still owned by an older request, move on to the next id
+                continue;
+            }
+            PendingReply reply = new PendingReply(correlationId);
+            if (slots.compareAndSet(index, null, reply)) {
+                reply.expireWith(timer.newTimeout(t -> expire(index, reply, timeout), timeout.toNanos(),
+                        TimeUnit.NANOSECONDS));
+                return reply;
+            }
+        }
+        size.decrementAndGet();
+        rejected.increment();
+        throw new RejectedExecutionException("Too many pending user requests");
+    }
+
+    public void complete(UserEvent event) {
+        complete(event, completions);
+    }
+
+    /**
+     * Matches a reply to its request on the calling thread, but completes the future, and so runs the stages waiting
+     * on it, on {@code completions}.
+     */
+    public void complete(UserEvent event, Executor completions) {
+        Long correlationId = event.correlationId();
+        if (correlationId == null) {
+            log.debug("Received uncorrelated event for {}", event.username());
+            return;
+        }
+
+        int index = (int) (correlationId & mask);
+        PendingReply reply = slots.get(index);
+        if (reply != null && reply.correlationId() == correlationId && release(index, reply)) {
+            reply.cancelExpiry();
+            execute(completions, () -> reply.complete(event));
         } else {
-            // This is expected if multiple instances or if it's an event not meant for us (broadcast)
-            // But since we use username as key, it is specific.
-            log.debug("Received event for {} but no pending request found.", username);
+            // This is expected if multiple instances share the reply topic or if the request already timed out
+            log.debug("Received event {} for {} but no pending request found.", correlationId, event.username());
         }
     }
+
+    /**
+     * Fails a request that will never get a reply, e.g. because sending it failed, and frees its slot right away
+     * instead of waiting for the timeout. The future is failed on the completion executor, not the calling thread.
+     */
+    public void fail(PendingReply reply, Throwable error) {
+        int index = (int) (reply.correlationId() & mask);
+        if (release(index, reply)) {
+            failed.increment();
+            reply.cancelExpiry();
+            execute(completions, () -> reply.completeExceptionally(error));
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private void expire(int index, PendingReply reply, Duration timeout) {
+        if (release(index, reply)) {
+            expired.increment();
+            TimeoutException error = new TimeoutException(
+                    "No reply for request " + reply.correlationId() + " within " + timeout.toMillis() + "ms");
+            execute(completions, () -> reply.completeExceptionally(error));
+        }
+    }
+
+    private static void execute(Executor executor, Runnable completion) {
+        try {
+            executor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            completion.run();
+        }
+    }
+
+    private boolean release(int index, PendingReply reply) {
+        if (slots.compareAndSet(index, reply, null)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void close() {
+        timer.stop();
+    }
 }
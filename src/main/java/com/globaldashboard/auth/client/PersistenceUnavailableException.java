@@ -0,0 +1,11 @@
+package com.globaldashboard.auth.client;
+
+/**
+ * A request could not be handed to Kafka, so no reply will come.
+ */
+public class PersistenceUnavailableException extends RuntimeException {
+
+    public PersistenceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
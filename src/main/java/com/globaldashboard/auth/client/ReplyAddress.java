@@ -0,0 +1,110 @@
+package com.globaldashboard.auth.client;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Where the replies to this instance's requests go: one partition of the reply topic, which only this instance
+ * reads (or every instance, when the topic has a single partition). Requests carry it in the reply headers of Spring
+ * Kafka's request/reply convention.
+ * <p>
+ * With more than one reply partition this is a contract with the persistence service: it must produce each reply to
+ * the partition named in {@link #PARTITION_HEADER}, as a Spring Kafka {@code @SendTo} listener does. A reply keyed or
+ * spread over the topic instead lands on a partition no waiting instance reads, and the request times out. Keep
+ * {@code auth.kafka.replies.partitions} at 1, with a single partition topic, until persistence honours the header.
+ */
+@Slf4j
+@Singleton
+public class ReplyAddress {
+
+    public static final String TOPIC_HEADER = "kafka_replyTopic";
+    public static final String PARTITION_HEADER = "kafka_replyPartition";
+
+    private static final Pattern ORDINAL = Pattern.compile("-(\\d+)$");
+
+    private final String topic;
+    private final int partition;
+    private final int partitions;
+    private final byte[] topicHeader;
+    private final byte[] partitionHeader;
+
+    @Inject
+    public ReplyAddress(ReplyRoutingConfiguration configuration) {
+        this(configuration.getTopic(), partitionOf(configuration), Math.max(1, configuration.getPartitions()));
+        log.info("Replies to this instance are routed to {}-{}", topic, partition);
+    }
+
+    /**
+     * @param partitions number of partitions the reply topic must have
+     */
+    public ReplyAddress(String topic, int partition, int partitions) {
+        this.topic = topic;
+        this.partition = partition;
+        this.partitions = partitions;
+        this.topicHeader = topic.getBytes(StandardCharsets.UTF_8);
+        this.partitionHeader = ByteBuffer.allocate(Integer.BYTES).putInt(partition).array();
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public int partition() {
+        return partition;
+    }
+
+    public int partitions() {
+        return partitions;
+    }
+
+    /**
+     * @return value of the {@link #TOPIC_HEADER} header, shared, must not be modified
+     */
+    public byte[] topicHeader() {
+        return topicHeader;
+    }
+
+    /**
+     * @return value of the {@link #PARTITION_HEADER} header (big-endian int), shared, must not be modified
+     */
+    public byte[] partitionHeader() {
+        return partitionHeader;
+    }
+
+    /**
+     * The configured partition, else the ordinal of a StatefulSet pod name. With a single partition every instance
+     * reads all replies and ignores the ones it did not ask for. Anything else could silently put two instances on one
+     * partition, so it fails instead.
+     */
+    static int partitionOf(ReplyRoutingConfiguration configuration) {
+        int partitions = Math.max(1, configuration.getPartitions());
+        Integer configured = configuration.getPartition();
+        if (configured != null) {
+            if (configured < 0 || configured >= partitions) {
+                throw new IllegalStateException("auth.kafka.replies.partition " + configured
+                        + " is not one of the " + partitions + " reply partitions");
+            }
+            return configured;
+        }
+        if (partitions == 1) {
+            return 0;
+        }
+        String instanceId = configuration.getInstanceId();
+        Matcher ordinal = ORDINAL.matcher(instanceId == null ? "" : instanceId);
+        if (!ordinal.find() || ordinal.group(1).length() > 9) {
+            throw new IllegalStateException("Cannot pick a reply partition for instance '" + instanceId
+                    + "': set auth.kafka.replies.partition or run as a StatefulSet");
+        }
+        int partition = Integer.parseInt(ordinal.group(1));
+        if (partition >= partitions) {
+            throw new IllegalStateException("Instance '" + instanceId + "' needs reply partition " + partition
+                    + " but auth.kafka.replies.partitions is " + partitions);
+        }
+        return partition;
+    }
+}
@@ -0,0 +1,62 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.ExecutionConfiguration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completes the pending request futures, and so runs the logins waiting on them, whatever resolved them: a reply on
+ * the {@link UserReplyListener} poll thread, a timeout on the {@link PendingRequestsRegistry} timer thread or a failed
+ * send on the producer I/O thread. None of those threads should run request handling.
+ * <p>
+ * Virtual threads with {@code auth.execution.virtual-threads}, otherwise a bounded pool that when full lets the caller
+ * complete the future itself, which slows it down rather than dropping completions.
+ */
+@Singleton
+public class ReplyCompletionExecutor implements Executor, AutoCloseable {
+
+    private final ExecutorService delegate;
+
+    public ReplyCompletionExecutor(ReplyRoutingConfiguration configuration,
+            ExecutionConfiguration executionConfiguration, MeterRegistry meterRegistry) {
+        if (executionConfiguration.isVirtualThreads()) {
+            this.delegate = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("user-replies-completion-", 0).factory());
+            return;
+        }
+        int threads = Math.max(1, configuration.getCompletionThreads());
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, configuration.getMaxPollRecords() * 2)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-replies-completion-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        Gauge.builder("auth.kafka.replies.completion.queue", pool, p -> p.getQueue().size())
+                .description("Reply completions waiting for a thread")
+                .register(meterRegistry);
+        this.delegate = pool;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(command);
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,112 @@
+package com.globaldashboard.auth.client;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.Nullable;
+import java.time.Duration;
+
+@ConfigurationProperties("auth.kafka.replies")
+public class ReplyRoutingConfiguration {
+
+    private String topic = "persistence.users.events";
+    private int partitions = 1;
+    @Nullable
+    private Integer partition;
+    @Nullable
+    private String instanceId;
+    private int maxPollRecords = 500;
+    private int fetchMinBytes = 1;
+    private Duration fetchMaxWait = Duration.ofMillis(100);
+    private int completionThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @return topic the persistence service replies on
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    /**
+     * @return number of partitions of the reply topic used for routing, at least the number of instances for each to
+     * read only its own replies
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * @return reply partition of this instance, the ordinal in a StatefulSet pod name when not set
+     */
+    @Nullable
+    public Integer getPartition() {
+        return partition;
+    }
+
+    public void setPartition(@Nullable Integer partition) {
+        this.partition = partition;
+    }
+
+    /**
+     * @return name of this instance, e.g. the pod name, whose trailing {@code -<ordinal>} is the reply partition
+     */
+    @Nullable
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(@Nullable String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * @return maximum number of replies handled as one batch
+     */
+    public int getMaxPollRecords() {
+        return maxPollRecords;
+    }
+
+    public void setMaxPollRecords(int maxPollRecords) {
+        this.maxPollRecords = maxPollRecords;
+    }
+
+    /**
+     * @return bytes the broker waits for before answering a fetch, 1 answers as soon as a reply is there
+     */
+    public int getFetchMinBytes() {
+        return fetchMinBytes;
+    }
+
+    public void setFetchMinBytes(int fetchMinBytes) {
+        this.fetchMinBytes = fetchMinBytes;
+    }
+
+    /**
+     * @return longest the broker holds a fetch to gather {@code fetch-min-bytes}
+     */
+    public Duration getFetchMaxWait() {
+        return fetchMaxWait;
+    }
+
+    public void setFetchMaxWait(Duration fetchMaxWait) {
+        this.fetchMaxWait = fetchMaxWait;
+    }
+
+    /**
+     * @return threads completing the pending requests, and running what waits on them, off the poll, timer and
+     * producer threads
+     */
+    public int getCompletionThreads() {
+        return completionThreads;
+    }
+
+    public void setCompletionThreads(int completionThreads) {
+        this.completionThreads = completionThreads;
+    }
+}
@@ -0,0 +1,32 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.session.SessionRevokedEvent;
+import com.globaldashboard.auth.service.RevocationFilter;
+import io.micronaut.configuration.kafka.annotation.KafkaListener;
+import io.micronaut.configuration.kafka.annotation.OffsetReset;
+import io.micronaut.configuration.kafka.annotation.Topic;
+import io.micronaut.context.annotation.Requires;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Feeds every instance's {@link RevocationFilter}. Each instance joins its own group and starts from the earliest
+ * offset, so a new pod replays the revocations still within the topic retention, which should match
+ * {@code auth.session.stateless.retention}.
+ */
+@Slf4j
+@Requires(property = "auth.session.stateless.enabled", value = "true")
+@KafkaListener(groupId = "global-dashboard-auth-revocations-${random.shortuuid}", offsetReset = OffsetReset.EARLIEST)
+public class SessionRevocationConsumer {
+
+    private final RevocationFilter revocationFilter;
+
+    public SessionRevocationConsumer(RevocationFilter revocationFilter) {
+        this.revocationFilter = revocationFilter;
+    }
+
+    @Topic("auth.sessions.revoked")
+    public void receive(SessionRevokedEvent event) {
+        log.debug("Received revocation of session {}", event.sessionId());
+        revocationFilter.revoke(event.sessionId(), event.revokedAt());
+    }
+}
@@ -0,0 +1,12 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.session.SessionRevokedEvent;
+import io.micronaut.configuration.kafka.annotation.KafkaClient;
+import io.micronaut.configuration.kafka.annotation.KafkaKey;
+import io.micronaut.configuration.kafka.annotation.Topic;
+
+@KafkaClient
+public interface SessionRevocationProducer {
+    @Topic("auth.sessions.revoked")
+    void sendRevocation(@KafkaKey String sessionId, SessionRevokedEvent event);
+}
@@ -0,0 +1,57 @@
+package com.globaldashboard.auth.client;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent calls for the same key into a single call. Callers arriving while a call is in flight share
+ * its outcome instead of issuing their own; once it completes the next caller starts a fresh one.
+ */
+final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    SingleFlight(Counter coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    CompletableFuture<V> execute(K key, Function<K, CompletableFuture<V>> call) {
+        CompletableFuture<V> shared = inFlight.get(key);
+        if (shared == null) {
+            CompletableFuture<V> candidate = new CompletableFuture<>();
+            shared = inFlight.putIfAbsent(key, candidate);
+            if (shared == null) {
+                start(key, candidate, call);
+                // Each caller gets its own dependent future so that cancelling it does not affect the others
+                return candidate.copy();
+            }
+        }
+        coalesced.increment();
+        return shared.copy();
+    }
+
+    int size() {
+        return inFlight.size();
+    }
+
+    private void start(K key, CompletableFuture<V> candidate, Function<K, CompletableFuture<V>> call) {
+        try {
+            call.apply(key).whenComplete((value, error) -> {
+                // Leave the map first so that callers observing the result start a new call if they retry
+                inFlight.remove(key, candidate);
+                if (error != null) {
+                    candidate.completeExceptionally(error);
+                } else {
+                    candidate.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, candidate);
+            candidate.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.user.UserEvent;
+import io.micronaut.configuration.kafka.annotation.KafkaListener;
+import io.micronaut.configuration.kafka.annotation.OffsetReset;
+import io.micronaut.configuration.kafka.annotation.OffsetStrategy;
+import io.micronaut.configuration.kafka.annotation.Topic;
+import io.micronaut.context.annotation.Requires;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies the change events of the persistence service (password updates, deletions) to this instance's
+ * {@link UserCredentialCache}. Each instance joins its own group so that every replica sees every change, not only the
+ * one a shared group would hand it. Nothing is committed: a new instance starts with an empty cache and only needs the
+ * changes from now on.
+ */
+@Slf4j
+@Requires(property = "auth.users.cache.enabled", notEquals = "false")
+@KafkaListener(groupId = "global-dashboard-auth-user-changes-${random.shortuuid}", offsetReset = OffsetReset.LATEST,
+        offsetStrategy = OffsetStrategy.DISABLED)
+public class UserChangeConsumer {
+
+    private final UserCredentialCache credentialCache;
+
+    public UserChangeConsumer(UserCredentialCache credentialCache) {
+        this.credentialCache = credentialCache;
+    }
+
+    @Topic("${auth.users.cache.change-topic:persistence.users.events}")
+    public void receive(UserEvent event) {
+        // Replies are handled by the instance that asked, through UserReplyConsumer
+        if (event.correlationId() != null) {
+            return;
+        }
+        credentialCache.onEvent(event);
+    }
+}
@@ -0,0 +1,63 @@
+package com.globaldashboard.auth.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.globaldashboard.auth.event.user.UserEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Near cache of the credential records (id, username, password hash) returned by the persistence service.
+ * <p>
+ * Records are filled by the replies of {@link UserReplyConsumer} and refreshed or dropped by the change events that
+ * {@link UserChangeConsumer} delivers to every instance. They are also bounded by size and time, so that a missed
+ * event only leaves a stale record for {@code auth.users.cache.expire-after-write}.
+ */
+@Slf4j
+@Singleton
+public class UserCredentialCache {
+
+    @Nullable
+    private final Cache<String, UserEvent> cache;
+
+    public UserCredentialCache(UserCredentialCacheConfiguration configuration, MeterRegistry meterRegistry) {
+        if (configuration.isEnabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(configuration.getMaximumSize())
+                    .expireAfterWrite(configuration.getExpireAfterWrite())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.users");
+        } else {
+            this.cache = null;
+        }
+    }
+
+    @Nullable
+    public UserEvent get(String username) {
+        return cache == null ? null : cache.getIfPresent(username);
+    }
+
+    public void onEvent(UserEvent event) {
+        if (cache == null || event.username() == null || event.type() == null) {
+            return;
+        }
+
+        switch (event.type()) {
+            case FOUND, CREATED, UPDATED -> {
+                if (event.id() != null && event.password() != null) {
+                    // Keep only what login needs
+                    cache.put(event.username(), new UserEvent(null, event.id(), event.username(), null,
+                            event.password(), UserEvent.EventType.FOUND, null));
+                } else {
+                    cache.invalidate(event.username());
+                }
+            }
+            case NOT_FOUND, DELETED, ERROR -> cache.invalidate(event.username());
+        }
+        log.debug("Applied {} event for {} to the credential cache", event.type(), event.username());
+    }
+}
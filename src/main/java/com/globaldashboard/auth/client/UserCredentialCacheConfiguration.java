@@ -0,0 +1,42 @@
+package com.globaldashboard.auth.client;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+
+@ConfigurationProperties("auth.users.cache")
+public class UserCredentialCacheConfiguration {
+
+    private boolean enabled = true;
+    private long maximumSize = 100_000;
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return maximum number of cached users
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return upper bound on how long a record is served without hearing from the persistence service
+     */
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+}
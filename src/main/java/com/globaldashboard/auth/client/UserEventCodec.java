@@ -0,0 +1,131 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.user.UserCreateRequest;
+import com.globaldashboard.auth.event.user.UserEvent;
+import com.globaldashboard.auth.event.user.UserFindRequest;
+import com.globaldashboard.auth.event.user.UserPasswordUpdateRequest;
+import com.globaldashboard.auth.proto.UserEventsProto;
+
+/**
+ * Conversions between the event records and their protobuf messages. Null fields are left unset and read back as
+ * null.
+ */
+final class UserEventCodec {
+
+    private UserEventCodec() {
+    }
+
+    static UserEventsProto.UserFindRequest encodeFind(UserFindRequest request) {
+        UserEventsProto.UserFindRequest.Builder builder = UserEventsProto.UserFindRequest.newBuilder();
+        if (request.correlationId() != null) {
+            builder.setCorrelationId(request.correlationId());
+        }
+        if (request.username() != null) {
+            builder.setUsername(request.username());
+        }
+        return builder.build();
+    }
+
+    static UserFindRequest decodeFind(UserEventsProto.UserFindRequest message) {
+        return new UserFindRequest(message.hasCorrelationId() ? message.getCorrelationId() : null,
+                message.hasUsername() ? message.getUsername() : null);
+    }
+
+    static UserEventsProto.UserCreateRequest encodeCreate(UserCreateRequest request) {
+        UserEventsProto.UserCreateRequest.Builder builder = UserEventsProto.UserCreateRequest.newBuilder();
+        if (request.correlationId() != null) {
+            builder.setCorrelationId(request.correlationId());
+        }
+        if (request.username() != null) {
+            builder.setUsername(request.username());
+        }
+        if (request.email() != null) {
+            builder.setEmail(request.email());
+        }
+        if (request.passwordHash() != null) {
+            builder.setPasswordHash(request.passwordHash());
+        }
+        return builder.build();
+    }
+
+    static UserCreateRequest decodeCreate(UserEventsProto.UserCreateRequest message) {
+        return new UserCreateRequest(message.hasCorrelationId() ? message.getCorrelationId() : null,
+                message.hasUsername() ? message.getUsername() : null,
+                message.hasEmail() ? message.getEmail() : null,
+                message.hasPasswordHash() ? message.getPasswordHash() : null);
+    }
+
+    static UserEventsProto.UserPasswordUpdateRequest encodePasswordUpdate(UserPasswordUpdateRequest request) {
+        UserEventsProto.UserPasswordUpdateRequest.Builder builder =
+                UserEventsProto.UserPasswordUpdateRequest.newBuilder();
+        if (request.userId() != null) {
+            builder.setUserId(request.userId());
+        }
+        if (request.username() != null) {
+            builder.setUsername(request.username());
+        }
+        if (request.passwordHash() != null) {
+            builder.setPasswordHash(request.passwordHash());
+        }
+        if (request.previousPasswordHash() != null) {
+            builder.setPreviousPasswordHash(request.previousPasswordHash());
+        }
+        return builder.build();
+    }
+
+    static UserPasswordUpdateRequest decodePasswordUpdate(UserEventsProto.UserPasswordUpdateRequest message) {
+        return new UserPasswordUpdateRequest(message.hasUserId() ? message.getUserId() : null,
+                message.hasUsername() ? message.getUsername() : null,
+                message.hasPasswordHash() ? message.getPasswordHash() : null,
+                message.hasPreviousPasswordHash() ? message.getPreviousPasswordHash() : null);
+    }
+
+    static UserEventsProto.UserEvent encodeEvent(UserEvent event) {
+        UserEventsProto.UserEvent.Builder builder = UserEventsProto.UserEvent.newBuilder();
+        if (event.correlationId() != null) {
+            builder.setCorrelationId(event.correlationId());
+        }
+        if (event.id() != null) {
+            builder.setId(event.id());
+        }
+        if (event.username() != null) {
+            builder.setUsername(event.username());
+        }
+        if (event.email() != null) {
+            builder.setEmail(event.email());
+        }
+        if (event.password() != null) {
+            builder.setPassword(event.password());
+        }
+        if (event.type() != null) {
+            builder.setType(UserEventsProto.UserEvent.EventType.valueOf(event.type().name()));
+        }
+        if (event.message() != null) {
+            builder.setMessage(event.message());
+        }
+        return builder.build();
+    }
+
+    static UserEvent decodeEvent(UserEventsProto.UserEvent message) {
+        return new UserEvent(message.hasCorrelationId() ? message.getCorrelationId() : null,
+                message.hasId() ? message.getId() : null,
+                message.hasUsername() ? message.getUsername() : null,
+                message.hasEmail() ? message.getEmail() : null,
+                message.hasPassword() ? message.getPassword() : null,
+                eventType(message.getType()),
+                message.hasMessage() ? message.getMessage() : null);
+    }
+
+    private static UserEvent.EventType eventType(UserEventsProto.UserEvent.EventType type) {
+        return switch (type) {
+            case CREATED -> UserEvent.EventType.CREATED;
+            case FOUND -> UserEvent.EventType.FOUND;
+            case NOT_FOUND -> UserEvent.EventType.NOT_FOUND;
+            case ERROR -> UserEvent.EventType.ERROR;
+            case UPDATED -> UserEvent.EventType.UPDATED;
+            case DELETED -> UserEvent.EventType.DELETED;
+            // Types added by a newer persistence service are unknown here, as with an absent type
+            case EVENT_TYPE_UNSPECIFIED, UNRECOGNIZED -> null;
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.user.UserCreateRequest;
+import com.globaldashboard.auth.event.user.UserEvent;
+import com.globaldashboard.auth.event.user.UserFindRequest;
+import com.globaldashboard.auth.event.user.UserPasswordUpdateRequest;
+import com.globaldashboard.auth.proto.UserEventsProto;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import io.micronaut.configuration.kafka.serde.SerdeRegistry;
+import io.micronaut.core.order.Ordered;
+import io.micronaut.core.type.Argument;
+import io.micronaut.json.JsonMapper;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Function;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serdes of the {@code persistence.users} records. They are written in the configured {@link WireFormat} and
+ * read in either one, told apart by the first byte: a JSON object starts with '{', which as a protobuf tag would be
+ * field 15 with the deprecated group wire type that none of these messages use. This lets the persistence service and
+ * the auth instances switch formats one at a time.
+ */
+@Singleton
+public class UserEventSerdeRegistry implements SerdeRegistry {
+
+    private final WireFormat format;
+    private final JsonMapper jsonMapper;
+    private final Map<Class<?>, Serde<?>> serdes;
+
+    public UserEventSerdeRegistry(WireFormatConfiguration configuration, JsonMapper jsonMapper) {
+        this.format = configuration.getWireFormat();
+        this.jsonMapper = jsonMapper;
+        this.serdes = Map.of(
+                UserFindRequest.class, serde(UserFindRequest.class, UserEventCodec::encodeFind,
+                        UserEventsProto.UserFindRequest.parser(), UserEventCodec::decodeFind),
+                UserCreateRequest.class, serde(UserCreateRequest.class, UserEventCodec::encodeCreate,
+                        UserEventsProto.UserCreateRequest.parser(), UserEventCodec::decodeCreate),
+                UserPasswordUpdateRequest.class, serde(UserPasswordUpdateRequest.class,
+                        UserEventCodec::encodePasswordUpdate, UserEventsProto.UserPasswordUpdateRequest.parser(),
+                        UserEventCodec::decodePasswordUpdate),
+                UserEvent.class, serde(UserEvent.class, UserEventCodec::encodeEvent,
+                        UserEventsProto.UserEvent.parser(), UserEventCodec::decodeEvent));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Serde<T> getSerde(Class<T> type) {
+        // Other types fall through to the default registries
+        return (Serde<T>) serdes.get(type);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private <T, M extends MessageLite> Serde<T> serde(Class<T> type, Function<T, M> encode, Parser<M> parser,
+            Function<M, T> decode) {
+        Argument<T> argument = Argument.of(type);
+        Serializer<T> serializer = (topic, value) -> {
+            if (value == null) {
+                return null;
+            }
+            if (format == WireFormat.PROTOBUF) {
+                return encode.apply(value).toByteArray();
+            }
+            try {
+                return jsonMapper.writeValueAsBytes(argument, value);
+            } catch (IOException e) {
+                throw new SerializationException("Could not write " + type.getSimpleName() + " as JSON", e);
+            }
+        };
+        Deserializer<T> deserializer = (topic, data) -> {
+            if (data == null) {
+                return null;
+            }
+            try {
+                if (data.length > 0 && data[0] == '{') {
+                    return jsonMapper.readValue(data, argument);
+                }
+                return decode.apply(parser.parseFrom(data));
+            } catch (InvalidProtocolBufferException e) {
+                throw new SerializationException("Invalid " + type.getSimpleName() + " on " + topic, e);
+            } catch (IOException e) {
+                throw new SerializationException("Invalid JSON " + type.getSimpleName() + " on " + topic, e);
+            }
+        };
+        return Serdes.serdeFrom(serializer, deserializer);
+    }
+}
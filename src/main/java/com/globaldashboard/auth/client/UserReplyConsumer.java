@@ -1,23 +1,49 @@
 package com.globaldashboard.auth.client;
 
 import com.globaldashboard.auth.event.user.UserEvent;
-import io.micronaut.configuration.kafka.annotation.KafkaListener;
-import io.micronaut.configuration.kafka.annotation.Topic;
+import jakarta.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.Executor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Handles the replies of the persistence service to this instance's requests, as read by {@link UserReplyListener}.
+ * Uncorrelated change events are left to {@link UserChangeConsumer}, which sees all of them.
+ */
 @Slf4j
-@KafkaListener(groupId = "global-dashboard-auth-consumer")
+@Singleton
 public class UserReplyConsumer {
 
     private final PendingRequestsRegistry registry;
+    private final UserCredentialCache credentialCache;
 
-    public UserReplyConsumer(PendingRequestsRegistry registry) {
+    public UserReplyConsumer(PendingRequestsRegistry registry, UserCredentialCache credentialCache) {
         this.registry = registry;
+        this.credentialCache = credentialCache;
     }
 
-    @Topic("persistence.users.events") // Assuming DB replies here? Yes, checked UserService
     public void receive(UserEvent event) {
-        log.info("Received UserEvent for: {}", event.username());
-        registry.complete(event.username(), event);
+        log.debug("Received UserEvent for: {}", event.username());
+        if (event.correlationId() == null) {
+            return;
+        }
+        // Update the cache first so that logins following this reply can skip Kafka
+        credentialCache.onEvent(event);
+        registry.complete(event);
+    }
+
+    /**
+     * Handles the replies of one poll in order. Only the cache updates and the matching happen on the calling thread,
+     * the pending futures are completed on {@code completions}.
+     */
+    public void receive(List<UserEvent> events, Executor completions) {
+        for (UserEvent event : events) {
+            if (event.correlationId() == null) {
+                continue;
+            }
+            credentialCache.onEvent(event);
+            registry.complete(event, completions);
+        }
+        log.debug("Received a batch of {} user events", events.size());
     }
 }
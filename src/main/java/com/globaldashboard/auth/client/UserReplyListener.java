@@ -0,0 +1,159 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.user.UserEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.configuration.kafka.config.KafkaDefaultConfiguration;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+/**
+ * Reads the replies routed to this instance: the consumer is assigned the single partition of its {@link ReplyAddress}
+ * instead of joining a group, so a reply never lands on a pod that has no pending request for it, whatever the number
+ * of replicas. This relies on persistence honouring the reply partition header, see {@link ReplyAddress}, and
+ * startup fails unless the topic has exactly {@code auth.kafka.replies.partitions} partitions. Nothing is committed,
+ * a restarted instance has no pending requests and starts from the end, positioned before the bean is ready so that
+ * {@link DefaultKafkaUserClient}, which depends on it, never sends a request whose reply would be skipped.
+ * <p>
+ * Each poll is handled as one batch. The poll thread only updates the cache and matches replies to requests, the
+ * futures are completed on the {@link ReplyCompletionExecutor} so that the logins waiting on them never hold up the
+ * next poll.
+ */
+@Slf4j
+@Context
+@Requires(property = "kafka.enabled", notEquals = "false")
+public class UserReplyListener implements AutoCloseable {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final Consumer<String, UserEvent> consumer;
+    private final UserReplyConsumer replies;
+    private final Executor completions;
+    private final TopicPartition partition;
+    private final DistributionSummary batchSize;
+    private final Timer batchTimer;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    @Inject
+    public UserReplyListener(KafkaDefaultConfiguration kafkaConfiguration, ReplyRoutingConfiguration configuration,
+            UserEventSerdeRegistry serdeRegistry, ReplyAddress address, UserReplyConsumer replies,
+            ReplyCompletionExecutor completions, MeterRegistry meterRegistry) {
+        this(new KafkaConsumer<>(consumerProperties(kafkaConfiguration, configuration), new StringDeserializer(),
+                        serdeRegistry.getSerde(UserEvent.class).deserializer()),
+                address, replies, completions, meterRegistry);
+    }
+
+    UserReplyListener(Consumer<String, UserEvent> consumer, ReplyAddress address, UserReplyConsumer replies,
+            Executor completions, MeterRegistry meterRegistry) {
+        this.consumer = consumer;
+        this.replies = replies;
+        this.completions = completions;
+        this.partition = new TopicPartition(address.topic(), address.partition());
+        this.batchSize = DistributionSummary.builder("auth.kafka.replies.batch.size")
+                .description("Replies handled per poll")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("auth.kafka.replies.batch.duration")
+                .description("Time the poll thread spends on a batch of replies")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        // Replies on a partition that no instance reads would time out every request, so the topic must have exactly
+        // the configured partitions
+        List<PartitionInfo> partitions = consumer.partitionsFor(address.topic());
+        int found = partitions == null ? 0 : partitions.size();
+        if (found != address.partitions()) {
+            consumer.close();
+            throw new IllegalStateException("Reply topic " + address.topic() + " has " + found
+                    + " partitions but auth.kafka.replies.partitions is " + address.partitions());
+        }
+        consumer.assign(List.of(partition));
+        consumer.seekToEnd(List.of(partition));
+        // Resolve the end offset now rather than on the first poll, so that replies to requests sent from here on,
+        // including those sent before that poll, are read
+        long start = consumer.position(partition);
+        log.info("Reading replies from {} at offset {}", partition, start);
+
+        this.thread = new Thread(this::run, "user-replies-" + address.partition());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                try {
+                    ConsumerRecords<String, UserEvent> records = consumer.poll(POLL_TIMEOUT);
+                    if (!records.isEmpty()) {
+                        receive(records);
+                    }
+                } catch (RecordDeserializationException e) {
+                    // Skip it, the request it answers times out
+                    log.error("Skipping unreadable reply at {}@{}", e.topicPartition(), e.offset(), e);
+                    consumer.seek(e.topicPartition(), e.offset() + 1);
+                }
+            }
+        } catch (WakeupException e) {
+            // close() was called
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private void receive(ConsumerRecords<String, UserEvent> records) {
+        long start = System.nanoTime();
+        List<UserEvent> events = new ArrayList<>(records.count());
+        for (ConsumerRecord<String, UserEvent> record : records) {
+            if (record.value() != null) {
+                events.add(record.value());
+            }
+        }
+        batchSize.record(events.size());
+        try {
+            replies.receive(events, completions);
+        } catch (RuntimeException e) {
+            log.error("Could not handle {} replies from {}", events.size(), partition, e);
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        consumer.wakeup();
+        thread.join(POLL_TIMEOUT.toMillis() * 2);
+    }
+
+    private static Properties consumerProperties(KafkaDefaultConfiguration kafkaConfiguration,
+            ReplyRoutingConfiguration configuration) {
+        Properties properties = new Properties();
+        properties.putAll(kafkaConfiguration.getConfig());
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, configuration.getMaxPollRecords());
+        properties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, configuration.getFetchMinBytes());
+        properties.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) configuration.getFetchMaxWait().toMillis());
+        return properties;
+    }
+}
@@ -2,15 +2,32 @@ package com.globaldashboard.auth.client;
 
 import com.globaldashboard.auth.event.user.UserFindRequest;
 import com.globaldashboard.auth.event.user.UserCreateRequest;
+import com.globaldashboard.auth.event.user.UserPasswordUpdateRequest;
 import io.micronaut.configuration.kafka.annotation.KafkaClient;
 import io.micronaut.configuration.kafka.annotation.KafkaKey;
 import io.micronaut.configuration.kafka.annotation.Topic;
+import io.micronaut.messaging.annotation.MessageHeader;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.producer.RecordMetadata;
 
-@KafkaClient
+/**
+ * Sends without blocking the caller: records are batched by the producer (see {@code kafka.producers.user-requests})
+ * and the futures complete once the broker acknowledged them. Requests expecting a reply carry the
+ * {@link ReplyAddress} of this instance.
+ */
+@KafkaClient(id = "user-requests")
 public interface UserRequestProducer {
     @Topic("persistence.users")
-    void sendFindRequest(@KafkaKey String username, UserFindRequest request);
+    CompletableFuture<RecordMetadata> sendFindRequest(@KafkaKey String username, UserFindRequest request,
+            @MessageHeader(ReplyAddress.TOPIC_HEADER) byte[] replyTopic,
+            @MessageHeader(ReplyAddress.PARTITION_HEADER) byte[] replyPartition);
 
     @Topic("persistence.users")
-    void sendCreateRequest(@KafkaKey String username, UserCreateRequest request);
+    CompletableFuture<RecordMetadata> sendCreateRequest(@KafkaKey String username, UserCreateRequest request,
+            @MessageHeader(ReplyAddress.TOPIC_HEADER) byte[] replyTopic,
+            @MessageHeader(ReplyAddress.PARTITION_HEADER) byte[] replyPartition);
+
+    @Topic("persistence.users")
+    CompletableFuture<RecordMetadata> sendPasswordUpdateRequest(@KafkaKey String username,
+            UserPasswordUpdateRequest request);
 }
@@ -0,0 +1,8 @@
+package com.globaldashboard.auth.client;
+
+/**
+ * Encoding of the records sent over the {@code persistence.users} topics.
+ */
+public enum WireFormat {
+    JSON, PROTOBUF
+}
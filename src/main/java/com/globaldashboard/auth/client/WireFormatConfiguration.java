@@ -0,0 +1,20 @@
+package com.globaldashboard.auth.client;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+@ConfigurationProperties("auth.kafka")
+public class WireFormatConfiguration {
+
+    private WireFormat wireFormat = WireFormat.JSON;
+
+    /**
+     * @return format of the records this instance sends, records are read in either format
+     */
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    public void setWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+}
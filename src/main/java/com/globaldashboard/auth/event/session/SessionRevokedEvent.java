@@ -0,0 +1,7 @@
+package com.globaldashboard.auth.event.session;
+
+import io.micronaut.serde.annotation.Serdeable;
+
+@Serdeable
+public record SessionRevokedEvent(String sessionId, long revokedAt) {
+}
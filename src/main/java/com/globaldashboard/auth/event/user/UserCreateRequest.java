@@ -3,5 +3,5 @@ package com.globaldashboard.auth.event.user;
 import io.micronaut.serde.annotation.Serdeable;
 
 @Serdeable
-public record UserCreateRequest(String username, String email, String passwordHash) {
+public record UserCreateRequest(Long correlationId, String username, String email, String passwordHash) {
 }
@@ -2,9 +2,14 @@ package com.globaldashboard.auth.event.user;
 
 import io.micronaut.serde.annotation.Serdeable;
 
+/**
+ * Reply or change event published by the persistence service. {@code correlationId} echoes the id of the request
+ * that triggered it and is {@code null} for events that do not answer a request.
+ */
 @Serdeable
-public record UserEvent(Long id, String username, String email, String password, EventType type, String message) {
+public record UserEvent(Long correlationId, Long id, String username, String email, String password, EventType type,
+        String message) {
     public enum EventType {
-        CREATED, FOUND, NOT_FOUND, ERROR
+        CREATED, FOUND, NOT_FOUND, ERROR, UPDATED, DELETED
     }
 }
@@ -3,5 +3,5 @@ package com.globaldashboard.auth.event.user;
 import io.micronaut.serde.annotation.Serdeable;
 
 @Serdeable
-public record UserFindRequest(String username) {
+public record UserFindRequest(Long correlationId, String username) {
 }
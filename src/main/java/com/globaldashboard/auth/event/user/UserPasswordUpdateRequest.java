@@ -0,0 +1,15 @@
+package com.globaldashboard.auth.event.user;
+
+import io.micronaut.serde.annotation.Serdeable;
+
+/**
+ * Replaces the stored password hash of a user, sent when a login finds it hashed with an outdated cost. No reply is
+ * expected; the persistence service publishes an {@code UPDATED} event when it applied the change.
+ * <p>
+ * The update is a compare-and-set: persistence must only store {@code passwordHash} while the stored hash still equals
+ * {@code previousPasswordHash}, so that a late upgrade never overwrites a password changed in the meantime.
+ */
+@Serdeable
+public record UserPasswordUpdateRequest(Long userId, String username, String passwordHash,
+        String previousPasswordHash) {
+}
@@ -1,181 +1,416 @@
 package com.globaldashboard.auth.grpc;
 
 import com.globaldashboard.auth.client.KafkaUserClient;
+import com.globaldashboard.auth.client.PersistenceUnavailableException;
 import com.globaldashboard.auth.event.user.UserEvent;
 import com.globaldashboard.auth.proto.AuthServiceGrpc;
 import com.globaldashboard.auth.proto.LoginRequest;
 import com.globaldashboard.auth.proto.LoginResponse;
+import com.globaldashboard.auth.proto.LogoutRequest;
+import com.globaldashboard.auth.proto.LogoutResponse;
+import com.globaldashboard.auth.proto.RevokeAllSessionsRequest;
+import com.globaldashboard.auth.proto.RevokeAllSessionsResponse;
+import com.globaldashboard.auth.proto.VerifyBatchRequest;
+import com.globaldashboard.auth.proto.VerifyBatchResponse;
 import com.globaldashboard.auth.proto.VerifyRequest;
 import com.globaldashboard.auth.proto.VerifyResponse;
+import com.globaldashboard.auth.proto.VerifyStreamRequest;
+import com.globaldashboard.auth.proto.VerifyStreamResponse;
+import com.globaldashboard.auth.service.PasswordHasher;
+import com.globaldashboard.auth.service.SessionConfiguration;
 import com.globaldashboard.auth.service.SessionService;
+import com.globaldashboard.auth.service.StatelessSessionConfiguration;
+import com.globaldashboard.auth.service.VerifiedToken;
+import com.globaldashboard.auth.service.VerifiedTokenCache;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import io.micronaut.grpc.annotation.GrpcService;
 import io.micronaut.security.token.jwt.generator.JwtTokenGenerator;
 import io.micronaut.security.token.jwt.validator.JwtTokenValidator;
-import io.micronaut.security.authentication.Authentication;
 import jakarta.inject.Inject;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeoutException;
-import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @GrpcService
 public class AuthEndpoint extends AuthServiceGrpc.AuthServiceImplBase {
 
     private static final Logger LOG = LoggerFactory.getLogger(AuthEndpoint.class);
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int STREAM_WINDOW = 128; // Verifications in flight per VerifyStream call
 
     private final KafkaUserClient userClient;
     private final SessionService sessionService;
+    private final PasswordHasher passwordHasher;
     private final JwtTokenGenerator tokenGenerator;
     private final JwtTokenValidator tokenValidator;
+    private final VerifiedTokenCache tokenCache;
+    private final boolean expiringTokens;
+    private final long expiresInSeconds;
 
     @Inject
     public AuthEndpoint(KafkaUserClient userClient,
             SessionService sessionService,
+            PasswordHasher passwordHasher,
             JwtTokenGenerator tokenGenerator,
-            JwtTokenValidator tokenValidator) {
+            JwtTokenValidator tokenValidator,
+            VerifiedTokenCache tokenCache,
+            SessionConfiguration sessionConfiguration,
+            StatelessSessionConfiguration statelessConfiguration) {
         this.userClient = userClient;
         this.sessionService = sessionService;
+        this.passwordHasher = passwordHasher;
         this.tokenGenerator = tokenGenerator;
         this.tokenValidator = tokenValidator;
+        this.tokenCache = tokenCache;
+        // Only stateless verification trusts the token alone, other modes slide the session in Redis on every use
+        this.expiringTokens = statelessConfiguration.isEnabled();
+        this.expiresInSeconds = expiringTokens
+                ? statelessConfiguration.getTokenLifetime().toSeconds()
+                : sessionConfiguration.getTtl().toSeconds();
     }
 
     @Override
     public void login(LoginRequest request, StreamObserver<LoginResponse> responseObserver) {
-        try {
-            // 1. Fetch user from DB via Kafka
-            // Timeout 5 seconds
-            UserEvent userEvent = userClient.findUser(request.getUsername())
-                    .get(5, TimeUnit.SECONDS);
-
-            if (userEvent.type() == UserEvent.EventType.NOT_FOUND || userEvent.password() == null) {
-                responseObserver.onError(io.grpc.Status.UNAUTHENTICATED
-                        .withDescription("Invalid credentials (User not found)").asRuntimeException());
-                return;
-            }
+        // 1. Fetch user from DB via Kafka without holding the gRPC thread, the client fails it on timeout
+        userClient.findUser(request.getUsername())
+                // 2. Verify Password on the hashing pool
+                .thenCompose(userEvent -> checkCredentials(request, userEvent))
+                // 3. Create Session in Redis, an expiring token's lifetime starts before the session's
+                .thenCompose(userEvent -> {
+                    Instant issuedAt = Instant.now();
+                    return sessionService
+                            .createSessionAsync(request.getUsername(), String.valueOf(userEvent.id()))
+                            .thenApply(sessionId -> issueToken(request, userEvent, sessionId, issuedAt));
+                })
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        responseObserver.onError(toStatusException("Login", error));
+                        return;
+                    }
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+                });
+    }
 
-            // 2. Verify Password
-            if (!BCrypt.checkpw(request.getPassword(), userEvent.password())) {
-                responseObserver.onError(io.grpc.Status.UNAUTHENTICATED
-                        .withDescription("Invalid credentials (Bad password)").asRuntimeException());
+    private CompletableFuture<UserEvent> checkCredentials(LoginRequest request, UserEvent userEvent) {
+        if (userEvent.type() == UserEvent.EventType.NOT_FOUND || userEvent.password() == null) {
+            throw Status.UNAUTHENTICATED
+                    .withDescription("Invalid credentials (User not found)").asRuntimeException();
+        }
+
+        return passwordHasher.matches(request.getPassword(), userEvent.password())
+                .thenApply(matches -> {
+                    if (!matches) {
+                        throw Status.UNAUTHENTICATED
+                                .withDescription("Invalid credentials (Bad password)").asRuntimeException();
+                    }
+                    if (passwordHasher.needsRehash(userEvent.password())) {
+                        rehash(request, userEvent);
+                    }
+                    return userEvent;
+                });
+    }
+
+    /**
+     * Upgrades a hash made with an outdated cost while the plain password is at hand. Runs in the background, the
+     * login does not wait for it, and a saturated hashing pool simply leaves the upgrade to a later login.
+     */
+    private void rehash(LoginRequest request, UserEvent userEvent) {
+        passwordHasher.hash(request.getPassword()).whenComplete((passwordHash, error) -> {
+            if (error != null) {
+                LOG.debug("Skipped password rehash for {}: {}", userEvent.username(), error.getMessage());
                 return;
             }
+            userClient.updatePassword(userEvent.id(), userEvent.username(), userEvent.password(), passwordHash);
+        });
+    }
 
-            // 3. Create Session in Redis
-            String sessionId = sessionService.createSession(request.getUsername(), String.valueOf(userEvent.id()));
-
-            // 4. Generate JWT with JTI = SessionID
-            Map<String, Object> claims = new HashMap<>();
-            claims.put("jti", sessionId);
-            claims.put("sub", request.getUsername());
-            claims.put("roles", Collections.singletonList("USER")); // Default role for now
-
-            Optional<String> tokenOpt = tokenGenerator.generateToken(claims);
-            if (tokenOpt.isPresent()) {
-                LoginResponse response = LoginResponse.newBuilder()
-                        .setAccessToken(tokenOpt.get())
-                        .setExpiresIn(1800)
-                        .build();
-                responseObserver.onNext(response);
-                responseObserver.onCompleted();
-            } else {
-                responseObserver.onError(io.grpc.Status.INTERNAL
+    /**
+     * In stateless mode the token expires {@code auth.session.stateless.token-lifetime} after it was issued, since
+     * Verify then only checks revocations. Otherwise it carries no expiry: the session's sliding TTL in Redis decides,
+     * and {@code expiresIn} reports how long it lasts unused.
+     */
+    private LoginResponse issueToken(LoginRequest request, UserEvent userEvent, String sessionId, Instant issuedAt) {
+        // 4. Generate JWT with JTI = SessionID, the user id travels in the token so Verify needs no lookup for it
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("jti", sessionId);
+        claims.put("sub", request.getUsername());
+        claims.put("uid", String.valueOf(userEvent.id()));
+        claims.put("roles", Collections.singletonList("USER")); // Default role for now
+        if (expiringTokens) {
+            claims.put("iat", issuedAt.getEpochSecond());
+            claims.put("exp", issuedAt.getEpochSecond() + expiresInSeconds);
+        }
+
+        return tokenGenerator.generateToken(claims)
+                .map(token -> LoginResponse.newBuilder()
+                        .setAccessToken(token)
+                        .setExpiresIn((int) expiresInSeconds)
+                        .build())
+                .orElseThrow(() -> Status.INTERNAL
                         .withDescription("Failed to generate token").asRuntimeException());
-            }
+    }
 
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            LOG.error("Login failed", e);
-            responseObserver.onError(io.grpc.Status.INTERNAL
-                    .withDescription("Login failed: " + e.getMessage()).asRuntimeException());
+    @Override
+    public void verify(VerifyRequest request, StreamObserver<VerifyResponse> responseObserver) {
+        parseToken(request.getToken())
+                .flatMap(this::checkSession)
+                .subscribe(response -> {
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+                }, error -> responseObserver.onError(toStatusException("Verification", error)));
+    }
+
+    @Override
+    public void verifyBatch(VerifyBatchRequest request, StreamObserver<VerifyBatchResponse> responseObserver) {
+        if (request.getTokensCount() > MAX_BATCH_SIZE) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("At most " + MAX_BATCH_SIZE + " tokens per batch").asRuntimeException());
+            return;
         }
+
+        // Signatures are checked in parallel, then all sessions go to Redis in one round trip. Parsing is deferred to
+        // subscription, otherwise it would run on the calling thread while building the pipeline
+        Flux.fromIterable(request.getTokensList())
+                .flatMapSequential(token -> Mono.defer(() -> parseToken(token)).subscribeOn(Schedulers.parallel()))
+                .collectList()
+                .flatMap(this::checkSessions)
+                .subscribe(results -> {
+                    responseObserver.onNext(VerifyBatchResponse.newBuilder().addAllResults(results).build());
+                    responseObserver.onCompleted();
+                }, error -> responseObserver.onError(toStatusException("Batch verification", error)));
     }
 
     @Override
-    public void verify(VerifyRequest request, StreamObserver<VerifyResponse> responseObserver) {
-        // 1. Parse JWT
-        // Uses Micronaut Security Validator which verifies Signature & Expiration
-        org.reactivestreams.Publisher<Authentication> authenticationPublisher = tokenValidator
-                .validateToken(request.getToken(), null);
+    public StreamObserver<VerifyStreamRequest> verifyStream(StreamObserver<VerifyStreamResponse> responseObserver) {
+        return new VerifyStreamHandler((ServerCallStreamObserver<VerifyStreamResponse>) responseObserver,
+                token -> parseToken(token).flatMap(this::checkSession), STREAM_WINDOW);
+    }
 
-        Mono.from(authenticationPublisher).subscribe(
-                auth -> {
-                    // 2. Extract JTI (Session ID)
-                    Object jtiObj = auth.getAttributes().get("jti");
-                    if (jtiObj == null) {
-                        sendInvalid(responseObserver, "Missing JTI");
-                        return;
+    @Override
+    public void logout(LogoutRequest request, StreamObserver<LogoutResponse> responseObserver) {
+        authenticate(request.getToken())
+                .flatMap(token -> Mono.fromCompletionStage(sessionService.invalidateSessionAsync(token.sessionId()))
+                        .thenReturn(LogoutResponse.newBuilder().setSuccess(true).build()))
+                .subscribe(response -> {
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+                }, error -> responseObserver.onError(toStatusException("Logout", error)));
+    }
+
+    @Override
+    public void revokeAllSessions(RevokeAllSessionsRequest request,
+            StreamObserver<RevokeAllSessionsResponse> responseObserver) {
+        authenticate(request.getToken())
+                .flatMap(token -> {
+                    if (token.userId() == null) {
+                        return Mono.error(Status.UNAUTHENTICATED
+                                .withDescription("Token carries no user id, log in again").asRuntimeException());
                     }
-                    String sessionId = jtiObj.toString();
-
-                    // 3. Check Redis
-                    if (sessionService.validateSession(sessionId)) {
-                        // Valid
-                        VerifyResponse response = VerifyResponse.newBuilder()
-                                .setValid(true)
-                                .setUsername(auth.getName())
-                                .setUserId(sessionId) // Or map userId if we stored it in claims
-                                .addAllRoles(auth.getRoles())
-                                .build();
-                        responseObserver.onNext(response);
-                        responseObserver.onCompleted();
-                    } else {
-                        sendInvalid(responseObserver, "Session expired or revoked");
+                    return Mono.fromCompletionStage(sessionService
+                            .invalidateUserSessionsAsync(token.userId()));
+                })
+                .subscribe(revoked -> {
+                    responseObserver.onNext(RevokeAllSessionsResponse.newBuilder().setRevokedCount(revoked).build());
+                    responseObserver.onCompleted();
+                }, error -> responseObserver.onError(toStatusException("Session revocation", error)));
+    }
+
+    /**
+     * Claims of a token that must be valid, and whose session must still be live, for the call to proceed, failing
+     * with {@code UNAUTHENTICATED} otherwise.
+     */
+    private Mono<VerifiedToken> authenticate(String token) {
+        return parseToken(token).flatMap(parsed -> {
+            if (!parsed.accepted()) {
+                return Mono.error(Status.UNAUTHENTICATED.withDescription(parsed.failure()).asRuntimeException());
+            }
+            return Mono.fromCompletionStage(sessionService.validateSessionAsync(parsed.sessionId()))
+                    .flatMap(valid -> valid
+                            ? Mono.just(parsed.claims())
+                            : Mono.error(Status.UNAUTHENTICATED
+                                    .withDescription("Session expired or revoked").asRuntimeException()));
+        });
+    }
+
+    /**
+     * Validates signature and expiration of the token and extracts the session id. Never empty: tokens that fail
+     * validation are reported as rejected.
+     */
+    private Mono<ParsedToken> parseToken(String token) {
+        // Tokens seen before skip parsing and the signature check, they are cached until they expire
+        VerifiedToken cached = tokenCache.get(token);
+        if (cached != null) {
+            return Mono.just(ParsedToken.accepted(cached));
+        }
+
+        // 1. Parse JWT
+        // Uses Micronaut Security Validator which verifies Signature & Expiration, it emits nothing for bad tokens
+        return Mono.from(tokenValidator.validateToken(token, null))
+                .map(auth -> {
+                    // 2. Extract JTI (Session ID)
+                    VerifiedToken verified = VerifiedToken.from(auth);
+                    if (verified == null) {
+                        return ParsedToken.rejected("Missing JTI");
                     }
-                },
-                error -> sendInvalid(responseObserver, "Invalid Token: " + error.getMessage()));
+                    tokenCache.put(token, verified);
+                    return ParsedToken.accepted(verified);
+                })
+                .defaultIfEmpty(ParsedToken.rejected("Invalid Token"))
+                .onErrorResume(error -> Mono.just(ParsedToken.rejected("Invalid Token: " + error.getMessage())));
+    }
+
+    private Mono<VerifyResponse> checkSession(ParsedToken token) {
+        if (!token.accepted()) {
+            return Mono.just(invalid(token.failure()));
+        }
+        // 3. Check Redis without blocking the validator's thread
+        return Mono.fromCompletionStage(sessionService.validateSessionAsync(token.sessionId()))
+                .map(valid -> toResponse(token, valid))
+                .onErrorResume(error -> Mono.just(invalid("Session check failed: " + error.getMessage())));
+    }
+
+    private Mono<List<VerifyResponse>> checkSessions(List<ParsedToken> tokens) {
+        List<String> sessionIds = tokens.stream()
+                .filter(ParsedToken::accepted)
+                .map(ParsedToken::sessionId)
+                .toList();
+        Mono<List<Boolean>> sessions = sessionIds.isEmpty()
+                ? Mono.just(List.<Boolean>of())
+                : Mono.fromCompletionStage(sessionService.validateSessionsAsync(sessionIds));
+
+        return sessions.map(valid -> {
+            List<VerifyResponse> responses = new ArrayList<>(tokens.size());
+            int next = 0;
+            for (ParsedToken token : tokens) {
+                responses.add(token.accepted() ? toResponse(token, valid.get(next++)) : invalid(token.failure()));
+            }
+            return responses;
+        });
     }
 
-    private void sendInvalid(StreamObserver<VerifyResponse> observer, String reason) {
-        LOG.warn("Token verification failed: {}", reason);
+    private static VerifyResponse toResponse(ParsedToken token, boolean sessionValid) {
+        if (!sessionValid) {
+            return invalid("Session expired or revoked");
+        }
+        return VerifyResponse.newBuilder()
+                .setValid(true)
+                .setUsername(token.claims().subject())
+                .setUserId(token.claims().userId() != null ? token.claims().userId() : "")
+                .addAllRoles(token.claims().roles())
+                .build();
+    }
+
+    private static VerifyResponse invalid(String reason) {
+        LOG.debug("Token verification failed: {}", reason);
         // We can return valid=false OR gRPC error. Analysis says valid=false or error.
         // Let's return valid=false to keep it clean for BFF logic.
-        VerifyResponse response = VerifyResponse.newBuilder()
+        return VerifyResponse.newBuilder()
                 .setValid(false)
                 .build();
-        observer.onNext(response);
-        observer.onCompleted();
     }
 
     @Override
     public void register(com.globaldashboard.auth.proto.RegisterRequest request,
             StreamObserver<com.globaldashboard.auth.proto.RegisterResponse> responseObserver) {
-        try {
-            // 1. Hash Password
-            String hashedPassword = BCrypt.hashpw(request.getPassword(), BCrypt.gensalt());
-
-            // 2. Call Kafka Client (Async Request-Reply)
-            UserEvent result = userClient.createUser(request.getUsername(), request.getEmail(), hashedPassword)
-                    .get(5, TimeUnit.SECONDS);
-
-            // 3. Handle Result
-            if (result.type() == UserEvent.EventType.ERROR) {
-                responseObserver.onError(io.grpc.Status.ALREADY_EXISTS
-                        .withDescription("User creation failed: " + result.message()).asRuntimeException());
-                return;
-            }
+        // 1. Hash Password on the hashing pool
+        passwordHasher.hash(request.getPassword())
+                // 2. Call Kafka Client (Async Request-Reply)
+                .thenCompose(hashedPassword -> userClient
+                        .createUser(request.getUsername(), request.getEmail(), hashedPassword))
+                // 3. Handle Result
+                .thenApply(AuthEndpoint::toRegisterResponse)
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        responseObserver.onError(toStatusException("Registration", error));
+                        return;
+                    }
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+                });
+    }
+
+    private static com.globaldashboard.auth.proto.RegisterResponse toRegisterResponse(UserEvent result) {
+        if (result.type() == UserEvent.EventType.ERROR) {
+            throw Status.ALREADY_EXISTS
+                    .withDescription("User creation failed: " + result.message()).asRuntimeException();
+        }
+
+        return com.globaldashboard.auth.proto.RegisterResponse
+                .newBuilder()
+                .setUserId(String.valueOf(result.id()))
+                .setUsername(result.username())
+                .setStatus("CREATED")
+                .build();
+    }
+
+    /**
+     * Maps the failure of an async stage to the status reported to the caller. Status exceptions raised by the
+     * stages themselves are passed through untouched.
+     */
+    private static StatusRuntimeException toStatusException(String operation, Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof StatusRuntimeException statusException) {
+            return statusException;
+        }
+        if (cause instanceof RejectedExecutionException) {
+            LOG.warn("{} shed: {}", operation, cause.getMessage());
+            return Status.RESOURCE_EXHAUSTED
+                    .withDescription(operation + " rejected: server is overloaded, retry later")
+                    .asRuntimeException();
+        }
+        if (cause instanceof TimeoutException) {
+            LOG.warn("{} timed out waiting for the persistence service", operation);
+            return Status.DEADLINE_EXCEEDED
+                    .withDescription(operation + " failed: persistence service did not reply in time")
+                    .asRuntimeException();
+        }
+        if (cause instanceof PersistenceUnavailableException) {
+            LOG.warn("{} failed: {}", operation, cause.getMessage());
+            return Status.UNAVAILABLE
+                    .withDescription(operation + " failed: persistence service is unavailable, retry later")
+                    .asRuntimeException();
+        }
+        LOG.error(operation + " failed", cause);
+        return Status.INTERNAL
+                .withDescription(operation + " failed: " + cause.getMessage()).asRuntimeException();
+    }
+
+    private record ParsedToken(VerifiedToken claims, String failure) {
+        static ParsedToken accepted(VerifiedToken claims) {
+            return new ParsedToken(claims, null);
+        }
+
+        static ParsedToken rejected(String failure) {
+            return new ParsedToken(null, failure);
+        }
+
+        boolean accepted() {
+            return failure == null;
+        }
 
-            // 4. Success
-            com.globaldashboard.auth.proto.RegisterResponse response = com.globaldashboard.auth.proto.RegisterResponse
-                    .newBuilder()
-                    .setUserId(String.valueOf(result.id()))
-                    .setUsername(result.username())
-                    .setStatus("CREATED")
-                    .build();
-
-            responseObserver.onNext(response);
-            responseObserver.onCompleted();
-
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            LOG.error("Registration failed", e);
-            responseObserver.onError(io.grpc.Status.INTERNAL
-                    .withDescription("Registration failed: " + e.getMessage()).asRuntimeException());
+        String sessionId() {
+            return claims.sessionId();
         }
     }
 }
@@ -0,0 +1,74 @@
+package com.globaldashboard.auth.grpc;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Times every call of the gRPC server, tagged with the method and the status code it ended with.
+ */
+@Singleton
+public class GrpcMetricsInterceptor implements ServerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    // Timers per method, indexed by status code, so the call path does not build meter ids
+    private final Map<String, Timer[]> timers = new ConcurrentHashMap<>();
+
+    public GrpcMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+            ServerCallHandler<ReqT, RespT> next) {
+        String method = call.getMethodDescriptor().getBareMethodName();
+        Timer[] methodTimers = timers.computeIfAbsent(method, name -> new Timer[Status.Code.values().length]);
+        long start = System.nanoTime();
+        AtomicBoolean recorded = new AtomicBoolean();
+
+        ServerCall<ReqT, RespT> timedCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                record(methodTimers, method, status.getCode(), start, recorded);
+                super.close(status, trailers);
+            }
+        };
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(
+                next.startCall(timedCall, headers)) {
+            @Override
+            public void onCancel() {
+                // Cancelled by the client or its deadline, close is not called in that case
+                record(methodTimers, method, Status.Code.CANCELLED, start, recorded);
+                super.onCancel();
+            }
+        };
+    }
+
+    private void record(Timer[] methodTimers, String method, Status.Code code, long start, AtomicBoolean recorded) {
+        if (!recorded.compareAndSet(false, true)) {
+            return;
+        }
+        Timer timer = methodTimers[code.ordinal()];
+        if (timer == null) {
+            timer = Timer.builder("auth.grpc.server.calls")
+                    .description("gRPC calls handled, by method and status")
+                    .tag("method", method)
+                    .tag("status", code.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            methodTimers[code.ordinal()] = timer;
+        }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,101 @@
+package com.globaldashboard.auth.grpc;
+
+import com.globaldashboard.auth.proto.VerifyResponse;
+import com.globaldashboard.auth.proto.VerifyStreamRequest;
+import com.globaldashboard.auth.proto.VerifyStreamResponse;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * Server side of a VerifyStream call.
+ * <p>
+ * Inbound messages are pulled manually: at most {@code window} verifications are in flight, and a new message is
+ * only requested once a response has been written and the transport is ready for more. A gateway that stops reading
+ * therefore stops being read from, instead of growing buffers on our side.
+ */
+final class VerifyStreamHandler implements StreamObserver<VerifyStreamRequest> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VerifyStreamHandler.class);
+
+    private final ServerCallStreamObserver<VerifyStreamResponse> responses;
+    private final Function<String, Mono<VerifyResponse>> verifier;
+
+    // Guarded by this: StreamObserver is not thread safe and responses complete on arbitrary threads
+    private int inFlight;
+    private int deferredRequests;
+    private boolean inputCompleted;
+    private boolean closed;
+
+    VerifyStreamHandler(ServerCallStreamObserver<VerifyStreamResponse> responses,
+            Function<String, Mono<VerifyResponse>> verifier, int window) {
+        this.responses = responses;
+        this.verifier = verifier;
+        responses.disableAutoRequest();
+        responses.setOnReadyHandler(this::onReady);
+        responses.setOnCancelHandler(this::onCancel);
+        responses.request(window);
+    }
+
+    @Override
+    public void onNext(VerifyStreamRequest request) {
+        synchronized (this) {
+            inFlight++;
+        }
+        verifier.apply(request.getToken())
+                .subscribe(result -> send(request.getRequestId(), result),
+                        error -> send(request.getRequestId(), VerifyResponse.newBuilder().setValid(false).build()));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        LOG.debug("Verify stream closed by client: {}", t.getMessage());
+        onCancel();
+    }
+
+    @Override
+    public synchronized void onCompleted() {
+        inputCompleted = true;
+        completeIfDrained();
+    }
+
+    private synchronized void send(String requestId, VerifyResponse result) {
+        inFlight--;
+        if (closed) {
+            return;
+        }
+        responses.onNext(VerifyStreamResponse.newBuilder()
+                .setRequestId(requestId)
+                .setResult(result)
+                .build());
+        if (inputCompleted) {
+            completeIfDrained();
+        } else if (responses.isReady()) {
+            responses.request(1);
+        } else {
+            // Client is not keeping up, ask for more once the transport drains
+            deferredRequests++;
+        }
+    }
+
+    private synchronized void onReady() {
+        if (!closed && deferredRequests > 0 && !inputCompleted) {
+            responses.request(deferredRequests);
+            deferredRequests = 0;
+        }
+    }
+
+    private synchronized void onCancel() {
+        closed = true;
+    }
+
+    private void completeIfDrained() {
+        if (inFlight == 0 && !closed) {
+            closed = true;
+            responses.onCompleted();
+        }
+    }
+}
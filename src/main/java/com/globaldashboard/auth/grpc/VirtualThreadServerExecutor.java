@@ -0,0 +1,33 @@
+package com.globaldashboard.auth.grpc;
+
+import io.grpc.ServerBuilder;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every gRPC call on its own virtual thread when {@code auth.execution.virtual-threads} is set, so handlers
+ * waiting on Kafka or Redis do not hold a platform thread. Password hashing is still handed to the bounded BCrypt pool,
+ * the virtual thread only waits for it and releases its carrier meanwhile.
+ */
+@Singleton
+@Requires(property = "auth.execution.virtual-threads", value = "true")
+public class VirtualThreadServerExecutor implements BeanCreatedEventListener<ServerBuilder<?>> {
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-virtual-", 0).factory());
+
+    @Override
+    public ServerBuilder<?> onCreated(BeanCreatedEvent<ServerBuilder<?>> event) {
+        return event.getBean().executor(executor);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+}
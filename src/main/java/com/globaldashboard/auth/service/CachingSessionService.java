@@ -0,0 +1,133 @@
+package com.globaldashboard.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Requires;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers valid sessions in process for a short time so that repeated Verify calls skip Redis.
+ * <p>
+ * Only positive results are cached. Revocations published by {@link DefaultSessionService#invalidateSession} on
+ * {@link DefaultSessionService#REVOCATION_CHANNEL} evict the session on every instance; if a message is lost the
+ * entry still expires after {@code auth.session.cache.ttl}. Sessions that simply time out in Redis stay valid here
+ * for at most the same window. The subscription is opened through {@link SessionRedis#connectPubSub()}, on the node
+ * the revocations are published to.
+ */
+@Slf4j
+@Primary
+@Singleton
+@Requires(property = "auth.session.cache.enabled", value = "true")
+@Requires(property = "auth.session.stateless.enabled", notEquals = "true")
+public class CachingSessionService implements SessionService {
+
+    private final DefaultSessionService delegate;
+    private final StatefulRedisPubSubConnection<String, String> pubSubConnection;
+    private final Cache<String, Boolean> validSessions;
+
+    public CachingSessionService(DefaultSessionService delegate,
+            SessionRedis redis,
+            SessionCacheConfiguration configuration,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.pubSubConnection = redis.connectPubSub();
+        this.validSessions = Caffeine.newBuilder()
+                .maximumSize(configuration.getMaximumSize())
+                .expireAfterWrite(configuration.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validSessions, "auth.sessions");
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        pubSubConnection.addListener(new RedisPubSubAdapter<String, String>() {
+            @Override
+            public void message(String channel, String sessionId) {
+                if (DefaultSessionService.REVOCATION_CHANNEL.equals(channel)) {
+                    validSessions.invalidate(sessionId);
+                }
+            }
+        });
+        pubSubConnection.async().subscribe(DefaultSessionService.REVOCATION_CHANNEL);
+        log.info("Session cache enabled, listening for revocations on {}", DefaultSessionService.REVOCATION_CHANNEL);
+    }
+
+    @PreDestroy
+    public void close() {
+        pubSubConnection.close();
+    }
+
+    @Override
+    public CompletionStage<String> createSessionAsync(String username, String userId) {
+        return delegate.createSessionAsync(username, userId);
+    }
+
+    @Override
+    public CompletionStage<Boolean> validateSessionAsync(String sessionId) {
+        if (validSessions.getIfPresent(sessionId) != null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return delegate.validateSessionAsync(sessionId).thenApply(valid -> {
+            if (valid) {
+                validSessions.put(sessionId, Boolean.TRUE);
+            }
+            return valid;
+        });
+    }
+
+    @Override
+    public CompletionStage<List<Boolean>> validateSessionsAsync(List<String> sessionIds) {
+        List<String> misses = sessionIds.stream()
+                .filter(sessionId -> validSessions.getIfPresent(sessionId) == null)
+                .distinct()
+                .toList();
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(sessionIds.stream().map(sessionId -> true).toList());
+        }
+        return delegate.validateSessionsAsync(misses).thenApply(results -> {
+            Map<String, Boolean> checked = new HashMap<>();
+            for (int i = 0; i < misses.size(); i++) {
+                checked.put(misses.get(i), results.get(i));
+                if (results.get(i)) {
+                    validSessions.put(misses.get(i), Boolean.TRUE);
+                }
+            }
+            return sessionIds.stream().map(sessionId -> checked.getOrDefault(sessionId, true)).toList();
+        });
+    }
+
+    @Override
+    public CompletionStage<Void> invalidateSessionAsync(String sessionId) {
+        validSessions.invalidate(sessionId);
+        return delegate.invalidateSessionAsync(sessionId);
+    }
+
+    @Override
+    public CompletionStage<List<String>> listSessionsAsync(String userId) {
+        return delegate.listSessionsAsync(userId);
+    }
+
+    @Override
+    public CompletionStage<Integer> invalidateUserSessionsAsync(String userId) {
+        // The published revocations also reach this instance, evicting here first closes the window until they do
+        return delegate.indexedSessionsAsync(userId)
+                .thenCompose(sessionIds -> {
+                    validSessions.invalidateAll(sessionIds);
+                    return delegate.invalidateUserSessionsAsync(userId);
+                });
+    }
+}
@@ -0,0 +1,98 @@
+package com.globaldashboard.auth.service;
+
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Redis Cluster: Lettuce routes every command to the node owning its slot and follows topology changes.
+ */
+final class ClusterSessionRedis implements SessionRedis {
+
+    private final RedisClusterClient client;
+    private final List<StatefulRedisClusterConnection<byte[], byte[]>> connections;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private ClusterSessionRedis(RedisClusterClient client,
+            List<StatefulRedisClusterConnection<byte[], byte[]>> connections) {
+        this.client = client;
+        this.connections = List.copyOf(connections);
+    }
+
+    static ClusterSessionRedis connect(List<String> seeds, int connections) {
+        List<RedisURI> uris = seeds.stream().map(RedisURI::create).toList();
+        RedisClusterClient client = RedisClusterClient.create(uris);
+        client.setOptions(ClusterClientOptions.builder()
+                .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                        .enableAllAdaptiveRefreshTriggers()
+                        .build())
+                .build());
+        List<StatefulRedisClusterConnection<byte[], byte[]>> opened = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, connections); i++) {
+            opened.add(client.connect(ByteArrayCodec.INSTANCE));
+        }
+        return new ClusterSessionRedis(client, opened);
+    }
+
+    @Override
+    public RedisClusterAsyncCommands<byte[], byte[]> commands(byte[] key) {
+        return next();
+    }
+
+    @Override
+    public RedisClusterAsyncCommands<byte[], byte[]> anyCommands() {
+        return next();
+    }
+
+    /**
+     * Messages published on any node reach the subscribers of every node of the cluster.
+     */
+    @Override
+    public StatefulRedisPubSubConnection<String, String> connectPubSub() {
+        return client.connectPubSub();
+    }
+
+    @Override
+    public String shardOf(byte[] key) {
+        RedisClusterNode node = connections.get(0).getPartitions().getPartitionBySlot(SlotHash.getSlot(key));
+        return node != null ? node.getUri().getHost() + ":" + node.getUri().getPort() : "unknown";
+    }
+
+    /**
+     * Groups by hash slot rather than by node: multi-key scripts must not span slots, even on one node.
+     */
+    @Override
+    public Collection<List<Integer>> groupForMultiKey(List<byte[]> keys) {
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            groups.computeIfAbsent(SlotHash.getSlot(keys.get(i)), slot -> new ArrayList<>()).add(i);
+        }
+        return groups.values();
+    }
+
+    @Override
+    public void close() {
+        connections.forEach(StatefulRedisClusterConnection::close);
+        client.shutdown();
+    }
+
+    private RedisClusterAsyncCommands<byte[], byte[]> next() {
+        int size = connections.size();
+        return size == 1
+                ? connections.get(0).async()
+                : connections.get(Math.floorMod(cursor.getAndIncrement(), size)).async();
+    }
+}
@@ -0,0 +1,50 @@
+package com.globaldashboard.auth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Maps keys to nodes so that adding or removing a node only moves about {@code 1/n} of the keys.
+ */
+final class ConsistentHashRing<T> {
+
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+
+    /**
+     * @param names stable names of the nodes, such as {@code host:port}: they decide where keys land, so every
+     *              instance must use the same ones
+     */
+    ConsistentHashRing(List<T> nodes, Function<T, String> names, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        for (T node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash((names.apply(node) + "#" + i).getBytes(StandardCharsets.UTF_8)), node);
+            }
+        }
+    }
+
+    T nodeFor(byte[] key) {
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    // 64-bit FNV-1a followed by a murmur3 finalizer
+    private static long hash(byte[] value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,194 @@
+package com.globaldashboard.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.mindrot.jbcrypt.BCrypt;
+
+@Slf4j
+@Singleton
+public class DefaultPasswordHasher implements PasswordHasher {
+
+    // Cost measured at startup, cheap enough to run a few times and slow enough to time reliably
+    private static final int CALIBRATION_COST = 8;
+    private static final int CALIBRATION_RUNS = 5;
+
+    private final ThreadPoolExecutor executor;
+    private final int cost;
+    private final int threads;
+    private final long maxQueueWaitNanos;
+    private final Timer checkTimer;
+    private final Timer hashTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejected;
+
+    // Moving average of a single BCrypt run, used to estimate how long a new task would wait
+    private volatile long averageHashNanos;
+
+    public DefaultPasswordHasher(PasswordHasherConfiguration configuration, MeterRegistry meterRegistry) {
+        this.threads = Math.max(1, configuration.getThreads());
+        this.maxQueueWaitNanos = configuration.getMaxQueueWait().toNanos();
+        this.cost = configuration.getCost() > 0 ? configuration.getCost() : calibrate(configuration);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, configuration.getQueueCapacity())), new HashingThreadFactory());
+
+        Gauge.builder("auth.hashing.cost", () -> cost)
+                .description("BCrypt cost factor of new hashes")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("BCrypt tasks waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing threads currently running BCrypt")
+                .register(meterRegistry);
+        this.checkTimer = Timer.builder("auth.hashing.duration").tag("operation", "check")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.hashTimer = Timer.builder("auth.hashing.duration").tag("operation", "hash")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.hashing.queue.wait")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.rejected = Counter.builder("auth.hashing.rejected")
+                .description("Hashing calls shed because the pool was saturated")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<String> hash(String password) {
+        return submit(hashTimer, () -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> matches(String password, String passwordHash) {
+        return submit(checkTimer, () -> BCrypt.checkpw(password, passwordHash));
+    }
+
+    /**
+     * Only lower costs are outdated: a hash stronger than the calibrated cost, e.g. made on faster hardware, is kept.
+     */
+    @Override
+    public boolean needsRehash(String passwordHash) {
+        int hashCost = costOf(passwordHash);
+        return hashCost > 0 && hashCost < cost;
+    }
+
+    public int cost() {
+        return cost;
+    }
+
+    /**
+     * Picks the highest cost whose hash stays within the target time on one core. Each cost step doubles the work,
+     * so one measurement at a low cost is enough to extrapolate.
+     */
+    static int calibrate(PasswordHasherConfiguration configuration) {
+        String salt = BCrypt.gensalt(CALIBRATION_COST);
+        long fastest = Long.MAX_VALUE;
+        // The fastest of a few runs, the first ones include JIT compilation
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+
+        long target = configuration.getTargetHashTime().toNanos();
+        int calibrated = CALIBRATION_COST;
+        long estimate = fastest;
+        while (estimate * 2 <= target && calibrated < 30) {
+            calibrated++;
+            estimate *= 2;
+        }
+        while (estimate > target && calibrated > 4) {
+            calibrated--;
+            estimate /= 2;
+        }
+        int cost = Math.max(configuration.getMinCost(), Math.min(configuration.getMaxCost(), calibrated));
+        log.info("BCrypt cost {} (~{}ms per hash on one core, target {}ms)", cost,
+                TimeUnit.NANOSECONDS.toMillis((long) Math.scalb((double) fastest, cost - CALIBRATION_COST)),
+                configuration.getTargetHashTime().toMillis());
+        return cost;
+    }
+
+    /**
+     * @return cost factor of a {@code $2a$NN$...} hash, or -1 if it is not one
+     */
+    static int costOf(String passwordHash) {
+        if (passwordHash == null || passwordHash.length() < 7 || passwordHash.charAt(0) != '$'
+                || passwordHash.charAt(3) != '$' || passwordHash.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = passwordHash.charAt(4);
+        char units = passwordHash.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(units)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> task) {
+        long expectedWaitNanos = executor.getQueue().size() * averageHashNanos / threads;
+        if (expectedWaitNanos > maxQueueWaitNanos) {
+            return reject("expected queue wait of " + TimeUnit.NANOSECONDS.toMillis(expectedWaitNanos) + "ms");
+        }
+
+        long enqueuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> run(timer, task, enqueuedAt), executor);
+        } catch (RejectedExecutionException e) {
+            return reject("queue is full");
+        }
+    }
+
+    private <T> T run(Timer timer, Supplier<T> task, long enqueuedAt) {
+        long startedAt = System.nanoTime();
+        long waitedNanos = startedAt - enqueuedAt;
+        queueWaitTimer.record(waitedNanos, TimeUnit.NANOSECONDS);
+        if (waitedNanos > maxQueueWaitNanos) {
+            // The caller has most likely given up already, don't burn CPU on it
+            rejected.increment();
+            throw new RejectedExecutionException("Password hashing waited "
+                    + TimeUnit.NANOSECONDS.toMillis(waitedNanos) + "ms in queue");
+        }
+
+        try {
+            return task.get();
+        } finally {
+            long elapsed = System.nanoTime() - startedAt;
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            long average = averageHashNanos;
+            averageHashNanos = average == 0 ? elapsed : average + (elapsed - average) / 8;
+        }
+    }
+
+    private <T> CompletableFuture<T> reject(String reason) {
+        rejected.increment();
+        log.debug("Rejecting password hashing: {}", reason);
+        return CompletableFuture.failedFuture(new RejectedExecutionException("Password hashing rejected: " + reason));
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,51 +1,342 @@
 package com.globaldashboard.auth.service;
 
-import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.Limit;
+import io.lettuce.core.Range;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.ZAddArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.inject.Singleton;
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Singleton
 public class DefaultSessionService implements SessionService {
 
-    private final StatefulRedisConnection<String, String> connection;
+    /**
+     * Channel on which revoked session ids are published, so that instances caching sessions can drop them.
+     */
+    public static final String REVOCATION_CHANNEL = "session-revocations";
 
-    public DefaultSessionService(StatefulRedisConnection<String, String> connection) {
-        this.connection = connection;
+    private static final byte[] REVOCATION_CHANNEL_BYTES = REVOCATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Stores the session and adds it to its user's index in one step, used when both keys live on the same shard. The
+     * index expires with the newest session it holds, so users who never come back leave nothing behind.
+     */
+    private static final RedisScript CREATE_SCRIPT = new RedisScript("""
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+            redis.call('ZADD', KEYS[2], ARGV[3], KEYS[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            return 'OK'
+            """, ScriptOutputType.STATUS);
+
+    /**
+     * Index members checked per session creation, the rest is pruned by later logins or by listing.
+     */
+    private static final int PRUNE_BATCH = 16;
+
+    /**
+     * Checks the session and slides its expiry, but only writes when the remaining TTL dropped below the threshold.
+     * Sessions used many times per second cost one write per refresh interval instead of one per call. Answers an
+     * empty list for a missing session, {@code [1]} for a live one, and the session value when the expiry was slid
+     * so that the user's index can be kept alive as long.
+     */
+    private static final RedisScript VALIDATE_SCRIPT = new RedisScript("""
+            local value = redis.call('GET', KEYS[1])
+            if not value then
+              return {}
+            end
+            if redis.call('TTL', KEYS[1]) < tonumber(ARGV[2]) then
+              redis.call('EXPIRE', KEYS[1], ARGV[1])
+              return {value}
+            end
+            return {1}
+            """, ScriptOutputType.MULTI);
+
+    /**
+     * Same as {@link #VALIDATE_SCRIPT} for many sessions, answering 0, 1 or the slid session's value per key. All keys
+     * must live on the same shard, and in cluster mode in the same hash slot.
+     */
+    private static final RedisScript VALIDATE_BATCH_SCRIPT = new RedisScript("""
+            local result = {}
+            for i, key in ipairs(KEYS) do
+              local value = redis.call('GET', key)
+              if not value then
+                result[i] = 0
+              elseif redis.call('TTL', key) < tonumber(ARGV[2]) then
+                redis.call('EXPIRE', key, ARGV[1])
+                result[i] = value
+              else
+                result[i] = 1
+              end
+            end
+            return result
+            """, ScriptOutputType.MULTI);
+
+    private final SessionRedis redis;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+    private final long ttlSeconds;
+    private final byte[] ttlArgument;
+    private final byte[] refreshThresholdArgument;
+
+    public DefaultSessionService(SessionRedis redis, SessionConfiguration configuration,
+            MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.meterRegistry = meterRegistry;
+        this.ttlSeconds = configuration.getTtl().toSeconds();
+        this.ttlArgument = ascii(ttlSeconds);
+        this.refreshThresholdArgument = ascii(
+                Math.max(0, ttlSeconds - configuration.getRefreshInterval().toSeconds()));
     }
 
     @Override
-    public String createSession(String username, String userId) {
-        String sessionId = UUID.randomUUID().toString();
-        RedisCommands<String, String> commands = connection.sync();
-        
-        // Key: session:<uuid> -> userId
-        String key = "session:" + sessionId;
-        commands.setex(key, 1800, userId); // 30 mins TTL
-        
-        log.info("Created session {} for user {}", sessionId, username);
-        return sessionId;
+    public CompletionStage<String> createSessionAsync(String username, String userId) {
+        String sessionId = SessionIdGenerator.next();
+        byte[] key = SessionKeys.key(sessionId);
+        byte[] value = new SessionValue(userId).encode();
+        byte[] indexKey = SessionKeys.userIndexKey(userId);
+        long now = nowSeconds();
+
+        // Key: 's' + 16 id bytes -> packed user id, and the key joins the user's index
+        CompletionStage<?> stored;
+        if (redis.groupForMultiKey(List.of(key, indexKey)).size() == 1) {
+            stored = onShard("create", key, commands -> CREATE_SCRIPT.<byte[], byte[], String>execute(commands,
+                    new byte[][] {key, indexKey}, value, ttlArgument, ascii(now)));
+        } else {
+            // Different shards: index first, so the index always covers every live session. A session that failed
+            // to be stored only leaves a member that pruning removes
+            stored = onShard("index", indexKey, commands -> commands.zadd(indexKey, now, key)
+                            .thenCombine(commands.expire(indexKey, ttlSeconds), (added, expiring) -> added))
+                    .thenCompose(added -> onShard("create", key,
+                            commands -> commands.setex(key, ttlSeconds, value)));
+        }
+        return stored.thenApply(ok -> {
+            log.debug("Created session {} for user {}", sessionId, username);
+            pruneStale(indexKey, now);
+            return sessionId;
+        });
     }
 
     @Override
-    public boolean validateSession(String sessionId) {
-        RedisCommands<String, String> commands = connection.sync();
-        String key = "session:" + sessionId;
-        String userId = commands.get(key);
-        
-        if (userId != null) {
-            commands.expire(key, 1800); // Sliding session
-            return true;
+    public CompletionStage<Boolean> validateSessionAsync(String sessionId) {
+        byte[] key = SessionKeys.key(sessionId);
+        // Read and conditional expiry refresh run atomically, in a single round trip
+        return onShard("validate", key, commands -> VALIDATE_SCRIPT.<byte[], byte[], List<Object>>execute(commands,
+                        new byte[][] {key}, ttlArgument, refreshThresholdArgument))
+                .thenApply(found -> !found.isEmpty() && isLive(found.get(0)));
+    }
+
+    @Override
+    public CompletionStage<List<Boolean>> validateSessionsAsync(List<String> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        List<byte[]> keys = sessionIds.stream().map(SessionKeys::key).toList();
+        Collection<List<Integer>> groups = redis.groupForMultiKey(keys);
+        Boolean[] results = new Boolean[keys.size()];
+        // One script per shard (or slot), all sent without waiting so the batch still costs one round trip
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[groups.size()];
+        int call = 0;
+        for (List<Integer> group : groups) {
+            byte[][] groupKeys = group.stream().map(keys::get).toArray(byte[][]::new);
+            calls[call++] = onShard("validate_batch", groupKeys[0], commands -> VALIDATE_BATCH_SCRIPT
+                            .<byte[], byte[], List<Object>>execute(commands, groupKeys, ttlArgument,
+                                    refreshThresholdArgument))
+                    .thenAccept(found -> {
+                        for (int i = 0; i < group.size(); i++) {
+                            results[group.get(i)] = isLive(found.get(i));
+                        }
+                    })
+                    .toCompletableFuture();
         }
-        return false;
+        return CompletableFuture.allOf(calls).thenApply(done -> Arrays.asList(results));
+    }
+
+    @Override
+    public CompletionStage<Void> invalidateSessionAsync(String sessionId) {
+        byte[] key = SessionKeys.key(sessionId);
+        // Both commands are sent without waiting; publishing is not bound to the key's shard
+        return onShard("invalidate", key, commands -> commands.del(key))
+                .thenCombine(redis.anyCommands().publish(REVOCATION_CHANNEL_BYTES,
+                        sessionId.getBytes(StandardCharsets.UTF_8)), (deleted, receivers) -> {
+                    log.debug("Invalidated session {}", sessionId);
+                    return (Void) null;
+                });
+    }
+
+    /**
+     * Index members whose session expired are dropped from the index on the way.
+     */
+    @Override
+    public CompletionStage<List<String>> listSessionsAsync(String userId) {
+        byte[] indexKey = SessionKeys.userIndexKey(userId);
+        return onShard("index", indexKey, commands -> commands.zrange(indexKey, 0, -1))
+                .thenCompose(members -> liveMembers(indexKey, members, nowSeconds()))
+                .thenApply(live -> live.stream().map(SessionKeys::sessionId).toList());
+    }
+
+    /**
+     * @return ids of every session in the user's index, including the ones whose key already expired and that
+     *         pruning has not removed yet. Revocations are based on this: a token can outlive its session key.
+     */
+    public CompletionStage<List<String>> indexedSessionsAsync(String userId) {
+        byte[] indexKey = SessionKeys.userIndexKey(userId);
+        return onShard("index", indexKey, commands -> commands.zrange(indexKey, 0, -1))
+                .thenApply(members -> members.stream().map(SessionKeys::sessionId).toList());
     }
 
+    /**
+     * Sends one {@code DEL} per shard without waiting between them, and publishes each revocation.
+     */
     @Override
-    public void invalidateSession(String sessionId) {
-        RedisCommands<String, String> commands = connection.sync();
-        commands.del("session:" + sessionId);
-        log.info("Invalidated session {}", sessionId);
+    public CompletionStage<Integer> invalidateUserSessionsAsync(String userId) {
+        byte[] indexKey = SessionKeys.userIndexKey(userId);
+        return onShard("index", indexKey, commands -> commands.zrange(indexKey, 0, -1))
+                .thenCompose(members -> {
+                    if (members.isEmpty()) {
+                        return CompletableFuture.completedFuture(0);
+                    }
+                    List<CompletableFuture<Long>> deletes = new ArrayList<>();
+                    for (List<Integer> group : redis.groupForMultiKey(members)) {
+                        byte[][] keys = group.stream().map(members::get).toArray(byte[][]::new);
+                        deletes.add(onShard("revoke_all", keys[0], commands -> commands.del(keys))
+                                .toCompletableFuture());
+                    }
+                    for (byte[] member : members) {
+                        redis.anyCommands().publish(REVOCATION_CHANNEL_BYTES,
+                                SessionKeys.sessionId(member).getBytes(StandardCharsets.UTF_8));
+                    }
+                    // Removes only the members read above, sessions created meanwhile stay indexed
+                    CompletableFuture<Long> unindexed = onShard("index", indexKey,
+                            commands -> commands.zrem(indexKey, members.toArray(byte[][]::new))).toCompletableFuture();
+                    return CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new))
+                            .thenCombine(unindexed, (done, removed) -> {
+                                int revoked = deletes.stream().mapToInt(delete -> delete.join().intValue()).sum();
+                                log.info("Invalidated {} sessions of user {}", revoked, userId);
+                                return revoked;
+                            });
+                });
+    }
+
+    /**
+     * Re-checks the index members that have not been seen alive for a whole TTL. Runs in the background of a
+     * session creation; failures only delay pruning.
+     */
+    private void pruneStale(byte[] indexKey, long now) {
+        Range<Long> stale = Range.from(Range.Boundary.unbounded(), Range.Boundary.including(now - ttlSeconds));
+        onShard("index", indexKey, commands -> commands.zrangebyscore(indexKey, stale, Limit.create(0, PRUNE_BATCH)))
+                .thenCompose(members -> liveMembers(indexKey, members, now))
+                .whenComplete((live, error) -> {
+                    if (error != null) {
+                        log.debug("Could not prune the session index", error);
+                    }
+                });
+    }
+
+    /**
+     * Checks which members still have a session: the others are removed from the index and the live ones have their
+     * score moved to {@code now}, so they are not checked again before another TTL elapsed.
+     */
+    private CompletionStage<List<byte[]>> liveMembers(byte[] indexKey, List<byte[]> members, long now) {
+        if (members.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        List<CompletableFuture<Long>> exists = members.stream()
+                .map(member -> onShard("index_check", member, commands -> commands.exists(member))
+                        .toCompletableFuture())
+                .toList();
+        return CompletableFuture.allOf(exists.toArray(CompletableFuture[]::new)).thenCompose(done -> {
+            List<byte[]> live = new ArrayList<>();
+            List<byte[]> dead = new ArrayList<>();
+            for (int i = 0; i < members.size(); i++) {
+                (exists.get(i).join() > 0 ? live : dead).add(members.get(i));
+            }
+            RedisClusterAsyncCommands<byte[], byte[]> commands = redis.commands(indexKey);
+            List<CompletableFuture<Long>> updates = new ArrayList<>();
+            if (!dead.isEmpty()) {
+                updates.add(commands.zrem(indexKey, dead.toArray(byte[][]::new)).toCompletableFuture());
+            }
+            if (!live.isEmpty()) {
+                Object[] scoresAndMembers = new Object[live.size() * 2];
+                for (int i = 0; i < live.size(); i++) {
+                    scoresAndMembers[2 * i] = (double) now;
+                    scoresAndMembers[2 * i + 1] = live.get(i);
+                }
+                updates.add(commands.zadd(indexKey, ZAddArgs.Builder.xx(), scoresAndMembers).toCompletableFuture());
+                updates.add(commands.expire(indexKey, ttlSeconds).thenApply(expiring -> 0L).toCompletableFuture());
+            }
+            return CompletableFuture.allOf(updates.toArray(CompletableFuture[]::new)).thenApply(updated -> live);
+        });
+    }
+
+    /**
+     * @return whether a validation script found the session, extending the user's index when the session's expiry
+     *         was slid
+     */
+    private boolean isLive(Object found) {
+        if (found instanceof byte[] value) {
+            extendIndex(SessionValue.decode(value).userId());
+            return true;
+        }
+        return Long.valueOf(1L).equals(found);
+    }
+
+    /**
+     * Keeps the user's index alive as long as a session whose expiry was just slid, so that revoking every session of
+     * the user still finds it. Runs in the background of the validation; failures only shorten the index's life.
+     */
+    private void extendIndex(String userId) {
+        byte[] indexKey = SessionKeys.userIndexKey(userId);
+        onShard("index_expire", indexKey, commands -> commands.expire(indexKey, ttlSeconds))
+                .whenComplete((extended, error) -> {
+                    if (error != null) {
+                        log.debug("Could not extend the session index", error);
+                    }
+                });
+    }
+
+    /**
+     * Runs a command on the shard owning {@code key}, recording its latency per command and shard.
+     */
+    private <T> CompletionStage<T> onShard(String command, byte[] key,
+            Function<RedisClusterAsyncCommands<byte[], byte[]>, CompletionStage<T>> call) {
+        Timer timer = timer(command, redis.shardOf(key));
+        long start = System.nanoTime();
+        return call.apply(redis.commands(key))
+                .whenComplete((result, error) -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Timers are registered once per command and shard, looking them up is cheaper than building one per call.
+     */
+    private Timer timer(String command, String shard) {
+        return timers.computeIfAbsent(command, name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(shard, name -> Timer.builder("auth.redis.session.command")
+                        .tag("command", command)
+                        .tag("shard", shard)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static byte[] ascii(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
     }
 }
@@ -0,0 +1,19 @@
+package com.globaldashboard.auth.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs BCrypt work off the caller's thread. Futures fail with a
+ * {@link java.util.concurrent.RejectedExecutionException} when the hashing pool is saturated.
+ */
+public interface PasswordHasher {
+    CompletableFuture<String> hash(String password);
+
+    CompletableFuture<Boolean> matches(String password, String passwordHash);
+
+    /**
+     * @return whether the hash was made with a lower cost factor than new hashes get, and should be replaced on the
+     * next successful login
+     */
+    boolean needsRehash(String passwordHash);
+}
@@ -0,0 +1,90 @@
+package com.globaldashboard.auth.service;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+
+@ConfigurationProperties("auth.hashing")
+public class PasswordHasherConfiguration {
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 256;
+    private Duration maxQueueWait = Duration.ofMillis(500);
+    private Duration targetHashTime = Duration.ofMillis(250);
+    private int minCost = 10;
+    private int maxCost = 16;
+    private int cost;
+
+    /**
+     * @return number of threads dedicated to BCrypt, defaults to the available cores
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return maximum number of hashing tasks waiting for a thread
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return latency budget for waiting in the queue, calls expected to wait longer are rejected
+     */
+    public Duration getMaxQueueWait() {
+        return maxQueueWait;
+    }
+
+    public void setMaxQueueWait(Duration maxQueueWait) {
+        this.maxQueueWait = maxQueueWait;
+    }
+
+    /**
+     * @return time one hash should take on one core, the cost factor is calibrated against it at startup
+     */
+    public Duration getTargetHashTime() {
+        return targetHashTime;
+    }
+
+    public void setTargetHashTime(Duration targetHashTime) {
+        this.targetHashTime = targetHashTime;
+    }
+
+    /**
+     * @return lowest cost calibration may pick, whatever the hardware
+     */
+    public int getMinCost() {
+        return minCost;
+    }
+
+    public void setMinCost(int minCost) {
+        this.minCost = minCost;
+    }
+
+    public int getMaxCost() {
+        return maxCost;
+    }
+
+    public void setMaxCost(int maxCost) {
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * @return fixed cost factor that skips calibration, 0 to calibrate
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    public void setCost(int cost) {
+        this.cost = cost;
+    }
+}
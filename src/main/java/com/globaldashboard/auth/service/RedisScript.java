@@ -0,0 +1,51 @@
+package com.globaldashboard.auth.service;
+
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.async.RedisScriptingAsyncCommands;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Lua script invoked by its SHA1 digest, falling back to sending the source when the server does not know it yet.
+ */
+final class RedisScript {
+
+    private final String source;
+    private final String sha;
+    private final ScriptOutputType outputType;
+
+    RedisScript(String source, ScriptOutputType outputType) {
+        this.source = source;
+        this.outputType = outputType;
+        try {
+            this.sha = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1")
+                    .digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    @SafeVarargs
+    final <K, V, T> CompletionStage<T> execute(RedisScriptingAsyncCommands<K, V> commands, K[] keys, V... args) {
+        return commands.<T>evalsha(sha, outputType, keys, args)
+                .exceptionallyCompose(error -> isNoScript(error)
+                        ? commands.<T>eval(source, outputType, keys, args)
+                        : CompletableFuture.<T>failedStage(error));
+    }
+
+    String sha() {
+        return sha;
+    }
+
+    private static boolean isNoScript(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RedisNoScriptException
+                || (cause.getMessage() != null && cause.getMessage().startsWith("NOSCRIPT"));
+    }
+}
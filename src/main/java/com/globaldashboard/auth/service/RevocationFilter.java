@@ -0,0 +1,78 @@
+package com.globaldashboard.auth.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local view of the sessions revoked during the last retention period, replicated to every instance through the
+ * revocation topic.
+ * <p>
+ * Lookups first go through a Bloom filter, which answers "not revoked" for the vast majority of sessions without
+ * touching the exact set. The filter is split in two generations rotated every retention period so that it never
+ * fills up; a revocation stays in it between one and two periods.
+ */
+@Singleton
+@Requires(property = "auth.session.stateless.enabled", value = "true")
+public class RevocationFilter {
+
+    private final StatelessSessionConfiguration configuration;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    public RevocationFilter(StatelessSessionConfiguration configuration, MeterRegistry meterRegistry) {
+        this.configuration = configuration;
+        this.current = newFilter();
+        this.previous = newFilter();
+        Gauge.builder("auth.sessions.revoked", revoked, Map::size)
+                .description("Revoked sessions remembered by the stateless verify mode")
+                .register(meterRegistry);
+    }
+
+    public void revoke(String sessionId, long revokedAt) {
+        long forgetAt = revokedAt + configuration.getRetention().toMillis();
+        if (forgetAt <= System.currentTimeMillis()) {
+            // Any token bound to this session has expired already
+            return;
+        }
+        current.add(sessionId);
+        revoked.merge(sessionId, forgetAt, Math::max);
+    }
+
+    /**
+     * @return {@code false} if the session is certainly not revoked
+     */
+    public boolean mightBeRevoked(String sessionId) {
+        return current.mightContain(sessionId) || previous.mightContain(sessionId);
+    }
+
+    /**
+     * @return {@code true} if the session is known to be revoked
+     */
+    public boolean isRevoked(String sessionId) {
+        return revoked.containsKey(sessionId);
+    }
+
+    @Scheduled(fixedDelay = "${auth.session.stateless.retention:1h}",
+            initialDelay = "${auth.session.stateless.retention:1h}")
+    void rotate() {
+        previous = current;
+        current = newFilter();
+    }
+
+    @Scheduled(fixedDelay = "1m")
+    void prune() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(forgetAt -> forgetAt <= now);
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(configuration.getExpectedRevocations(), configuration.getFalsePositiveProbability());
+    }
+}
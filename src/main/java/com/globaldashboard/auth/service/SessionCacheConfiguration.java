@@ -0,0 +1,42 @@
+package com.globaldashboard.auth.service;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+
+@ConfigurationProperties("auth.session.cache")
+public class SessionCacheConfiguration {
+
+    private boolean enabled;
+    private long maximumSize = 100_000;
+    private Duration ttl = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return maximum number of sessions remembered as valid
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return how long a positive result is trusted, the worst case staleness if a revocation message is lost
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+}
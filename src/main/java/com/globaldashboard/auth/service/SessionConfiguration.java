@@ -0,0 +1,34 @@
+package com.globaldashboard.auth.service;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+
+@ConfigurationProperties("auth.session")
+public class SessionConfiguration {
+
+    private Duration ttl = Duration.ofMinutes(30);
+    private Duration refreshInterval = Duration.ofMinutes(1);
+
+    /**
+     * @return how long a session stays alive without being used
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * @return minimum time between two writes sliding the expiry of the same session. Idle sessions expire between
+     *         {@code ttl - refreshInterval} and {@code ttl} after their last use.
+     */
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+}
@@ -0,0 +1,37 @@
+package com.globaldashboard.auth.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Produces unguessable 128-bit session ids, encoded as 22 URL-safe base64 characters.
+ * <p>
+ * {@link java.util.UUID#randomUUID()} draws from one shared {@code SecureRandom} whose default Linux implementation
+ * synchronizes on every call, so concurrent logins queue behind each other. Here each thread owns a DRBG instance,
+ * seeded once and never blocking afterwards.
+ */
+final class SessionIdGenerator {
+
+    static final int ID_BYTES = 16;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SessionIdGenerator::newRandom);
+
+    private SessionIdGenerator() {
+    }
+
+    static String next() {
+        byte[] id = new byte[ID_BYTES];
+        RANDOM.get().nextBytes(id);
+        return ENCODER.encodeToString(id);
+    }
+
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.globaldashboard.auth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Redis keys of sessions: a one byte prefix followed by the 16 raw bytes of the id, 17 bytes instead of the 44 of
+ * {@code "session:" + uuid}.
+ * <p>
+ * Ids that are not in the compact format, such as the UUIDs of sessions created before it, keep their
+ * {@code session:<id>} key so that they stay valid until they expire.
+ */
+final class SessionKeys {
+
+    private static final byte PREFIX = 's';
+    private static final int ENCODED_LENGTH = 22;
+    private static final int LEGACY_PREFIX_LENGTH = "session:".length();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private SessionKeys() {
+    }
+
+    static byte[] key(String sessionId) {
+        if (sessionId.length() == ENCODED_LENGTH) {
+            try {
+                byte[] id = DECODER.decode(sessionId);
+                byte[] key = new byte[1 + id.length];
+                key[0] = PREFIX;
+                System.arraycopy(id, 0, key, 1, id.length);
+                return key;
+            } catch (IllegalArgumentException notBase64) {
+                // Falls through to the legacy key
+            }
+        }
+        return legacyKey(sessionId);
+    }
+
+    static byte[] legacyKey(String sessionId) {
+        return ("session:" + sessionId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Inverse of {@link #key(String)}.
+     */
+    static String sessionId(byte[] key) {
+        if (key.length == 1 + SessionIdGenerator.ID_BYTES && key[0] == PREFIX) {
+            return ENCODER.encodeToString(Arrays.copyOfRange(key, 1, key.length));
+        }
+        return new String(key, LEGACY_PREFIX_LENGTH, key.length - LEGACY_PREFIX_LENGTH, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Key of the sorted set indexing the sessions of a user: members are session keys, scores the last time (epoch
+     * seconds) the session was known to exist.
+     */
+    static byte[] userIndexKey(String userId) {
+        return ("u:" + userId).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package com.globaldashboard.auth.service;
+
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Redis topology holding the sessions: tells which connection and which shard serve a key. Keys and values are raw
+ * bytes, see {@link SessionKeys} and {@link SessionValue}.
+ */
+public interface SessionRedis extends AutoCloseable {
+
+    /**
+     * @return commands able to serve {@code key}
+     */
+    RedisClusterAsyncCommands<byte[], byte[]> commands(byte[] key);
+
+    /**
+     * @return commands for operations that are not bound to a key, such as publishing
+     */
+    RedisClusterAsyncCommands<byte[], byte[]> anyCommands();
+
+    /**
+     * Opens a connection for subscribing to what is published through {@link #anyCommands()}, on the same node or
+     * cluster so that publishers and subscribers always meet. The caller closes it.
+     */
+    StatefulRedisPubSubConnection<String, String> connectPubSub();
+
+    /**
+     * @return name of the shard owning {@code key}, used to tag metrics
+     */
+    String shardOf(byte[] key);
+
+    /**
+     * Splits keys into groups that can be used together in one multi-key command or script.
+     *
+     * @return indexes into {@code keys}, one list per group
+     */
+    Collection<List<Integer>> groupForMultiKey(List<byte[]> keys);
+
+    @Override
+    void close();
+}
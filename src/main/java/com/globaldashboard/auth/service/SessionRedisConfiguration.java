@@ -0,0 +1,70 @@
+package com.globaldashboard.auth.service;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties("auth.session.redis")
+public class SessionRedisConfiguration {
+
+    public enum Mode {
+        /**
+         * Single node (or a sentinel URI) configured through {@code redis.uri}.
+         */
+        STANDALONE,
+        /**
+         * Independent nodes listed in {@code nodes}, keys spread by consistent hashing on the client.
+         */
+        SHARDED,
+        /**
+         * Redis Cluster reachable through the seed URIs listed in {@code nodes}.
+         */
+        CLUSTER
+    }
+
+    private Mode mode = Mode.STANDALONE;
+    private List<String> nodes = new ArrayList<>();
+    private int connectionsPerNode = 1;
+    private int virtualNodes = 160;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return Redis URIs of the shards, or the cluster seed nodes
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<String> nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return connections opened per node, commands are multiplexed over them round robin
+     */
+    public int getConnectionsPerNode() {
+        return connectionsPerNode;
+    }
+
+    public void setConnectionsPerNode(int connectionsPerNode) {
+        this.connectionsPerNode = connectionsPerNode;
+    }
+
+    /**
+     * @return points per node on the consistent hash ring in sharded mode
+     */
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+}
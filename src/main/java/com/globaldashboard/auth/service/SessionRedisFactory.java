@@ -0,0 +1,49 @@
+package com.globaldashboard.auth.service;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+
+@Factory
+public class SessionRedisFactory {
+
+    private static final String MODE = "auth.session.redis.mode";
+
+    /**
+     * Binary connections to the {@code redis.uri} node, which may also point at sentinels
+     * ({@code redis-sentinel://host:26379#master}).
+     */
+    @Singleton
+    @Bean(preDestroy = "close")
+    @Requires(property = MODE, value = "standalone", defaultValue = "standalone")
+    SessionRedis standaloneSessionRedis(RedisClient client, SessionRedisConfiguration configuration) {
+        List<StatefulRedisConnection<byte[], byte[]>> connections = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, configuration.getConnectionsPerNode()); i++) {
+            connections.add(client.connect(ByteArrayCodec.INSTANCE));
+        }
+        return new ShardedSessionRedis(
+                List.of(new ShardedSessionRedis.Node("default", client, connections, connections)),
+                configuration.getVirtualNodes(), List.of());
+    }
+
+    @Singleton
+    @Bean(preDestroy = "close")
+    @Requires(property = MODE, value = "sharded")
+    SessionRedis shardedSessionRedis(SessionRedisConfiguration configuration) {
+        return ShardedSessionRedis.connect(configuration.getNodes(), configuration.getConnectionsPerNode(),
+                configuration.getVirtualNodes());
+    }
+
+    @Singleton
+    @Bean(preDestroy = "close")
+    @Requires(property = MODE, value = "cluster")
+    SessionRedis clusterSessionRedis(SessionRedisConfiguration configuration) {
+        return ClusterSessionRedis.connect(configuration.getNodes(), configuration.getConnectionsPerNode());
+    }
+}
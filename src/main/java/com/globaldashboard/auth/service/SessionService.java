@@ -1,7 +1,52 @@
 package com.globaldashboard.auth.service;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 public interface SessionService {
-    String createSession(String username, String userId);
-    boolean validateSession(String sessionId);
-    void invalidateSession(String sessionId);
+    CompletionStage<String> createSessionAsync(String username, String userId);
+
+    /**
+     * Checks that the session exists and, in the same Redis round trip, slides its expiry.
+     */
+    CompletionStage<Boolean> validateSessionAsync(String sessionId);
+
+    /**
+     * Validates several sessions at once, the result holds one entry per session id in the same order.
+     */
+    default CompletionStage<List<Boolean>> validateSessionsAsync(List<String> sessionIds) {
+        List<CompletableFuture<Boolean>> results = sessionIds.stream()
+                .map(sessionId -> validateSessionAsync(sessionId).toCompletableFuture())
+                .toList();
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    CompletionStage<Void> invalidateSessionAsync(String sessionId);
+
+    /**
+     * @return ids of the live sessions of the user, from the per-user index maintained by
+     * {@link #createSessionAsync}
+     */
+    CompletionStage<List<String>> listSessionsAsync(String userId);
+
+    /**
+     * Ends every session of the user without scanning the keyspace.
+     *
+     * @return the number of sessions that were still live
+     */
+    CompletionStage<Integer> invalidateUserSessionsAsync(String userId);
+
+    default String createSession(String username, String userId) {
+        return createSessionAsync(username, userId).toCompletableFuture().join();
+    }
+
+    default boolean validateSession(String sessionId) {
+        return validateSessionAsync(sessionId).toCompletableFuture().join();
+    }
+
+    default void invalidateSession(String sessionId) {
+        invalidateSessionAsync(sessionId).toCompletableFuture().join();
+    }
 }
@@ -0,0 +1,86 @@
+package com.globaldashboard.auth.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * What a session stores in Redis, packed into one small value.
+ * <p>
+ * Layout: a format byte, then the user id. Numeric user ids are written as an unsigned varint (format 1), other ids
+ * as a varint length followed by their UTF-8 bytes (format 2). Bytes after the id, the username stored by earlier
+ * versions, are ignored, and values written before this format (a bare user id string) decode as the id.
+ * <p>
+ * The username is not stored: tokens carry it, and nothing reads it back from Redis.
+ *
+ * @param userId id of the user owning the session, read back to find the user's session index
+ */
+record SessionValue(String userId) {
+
+    private static final byte NUMERIC_ID = 1;
+    private static final byte TEXT_ID = 2;
+
+    byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        long numericId = parseUnsigned(userId);
+        if (numericId >= 0) {
+            out.write(NUMERIC_ID);
+            writeVarint(out, numericId);
+        } else {
+            byte[] id = userId.getBytes(StandardCharsets.UTF_8);
+            out.write(TEXT_ID);
+            writeVarint(out, id.length);
+            out.writeBytes(id);
+        }
+        return out.toByteArray();
+    }
+
+    static SessionValue decode(byte[] value) {
+        if (value.length == 0 || (value[0] != NUMERIC_ID && value[0] != TEXT_ID)) {
+            return new SessionValue(new String(value, StandardCharsets.UTF_8));
+        }
+        int[] position = {1};
+        if (value[0] == NUMERIC_ID) {
+            return new SessionValue(Long.toString(readVarint(value, position)));
+        }
+        int length = (int) readVarint(value, position);
+        return new SessionValue(new String(value, position[0], length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the id as a non-negative long, or -1 if it is not the canonical form of one
+     */
+    private static long parseUnsigned(String id) {
+        if (id.isEmpty() || id.length() > 18 || (id.length() > 1 && id.charAt(0) == '0')) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] value, int[] position) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = value[position[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in session value");
+    }
+}
@@ -0,0 +1,116 @@
+package com.globaldashboard.auth.service;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Standalone Redis nodes, each served by a small pool of multiplexed connections. With a single node this is the
+ * standalone mode; with several, keys are spread across them by a {@link ConsistentHashRing}.
+ */
+final class ShardedSessionRedis implements SessionRedis {
+
+    private final List<Node> nodes;
+    private final ConsistentHashRing<Node> ring;
+    private final List<RedisClient> ownedClients;
+
+    ShardedSessionRedis(List<Node> nodes, int virtualNodes, List<RedisClient> ownedClients) {
+        this.nodes = List.copyOf(nodes);
+        this.ring = new ConsistentHashRing<>(this.nodes, Node::name, virtualNodes);
+        this.ownedClients = ownedClients;
+    }
+
+    static ShardedSessionRedis connect(List<String> uris, int connectionsPerNode, int virtualNodes) {
+        List<Node> nodes = new ArrayList<>();
+        List<RedisClient> clients = new ArrayList<>();
+        for (String uri : uris) {
+            RedisURI redisUri = RedisURI.create(uri);
+            RedisClient client = RedisClient.create(redisUri);
+            clients.add(client);
+            List<StatefulRedisConnection<byte[], byte[]>> connections = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, connectionsPerNode); i++) {
+                connections.add(client.connect(ByteArrayCodec.INSTANCE));
+            }
+            nodes.add(new Node(redisUri.getHost() + ":" + redisUri.getPort(), client, connections, connections));
+        }
+        return new ShardedSessionRedis(nodes, virtualNodes, clients);
+    }
+
+    @Override
+    public RedisClusterAsyncCommands<byte[], byte[]> commands(byte[] key) {
+        return nodes.size() == 1 ? nodes.get(0).next() : ring.nodeFor(key).next();
+    }
+
+    @Override
+    public RedisClusterAsyncCommands<byte[], byte[]> anyCommands() {
+        return nodes.get(0).next();
+    }
+
+    /**
+     * Subscribes on the first node, where {@link #anyCommands()} publishes.
+     */
+    @Override
+    public StatefulRedisPubSubConnection<String, String> connectPubSub() {
+        return nodes.get(0).client().connectPubSub();
+    }
+
+    @Override
+    public String shardOf(byte[] key) {
+        return nodes.size() == 1 ? nodes.get(0).name() : ring.nodeFor(key).name();
+    }
+
+    @Override
+    public Collection<List<Integer>> groupForMultiKey(List<byte[]> keys) {
+        if (nodes.size() == 1) {
+            List<Integer> all = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                all.add(i);
+            }
+            return List.of(all);
+        }
+        Map<Node, List<Integer>> groups = new IdentityHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            groups.computeIfAbsent(ring.nodeFor(keys.get(i)), node -> new ArrayList<>()).add(i);
+        }
+        return groups.values();
+    }
+
+    @Override
+    public void close() {
+        nodes.forEach(Node::close);
+        ownedClients.forEach(RedisClient::shutdown);
+    }
+
+    /**
+     * @param client the client of the node, used to open further connections to it
+     * @param owned  the connections opened for this store, closed with it
+     */
+    record Node(String name, RedisClient client, List<StatefulRedisConnection<byte[], byte[]>> connections,
+            List<StatefulRedisConnection<byte[], byte[]>> owned, AtomicInteger cursor) {
+
+        Node(String name, RedisClient client, List<StatefulRedisConnection<byte[], byte[]>> connections,
+                List<StatefulRedisConnection<byte[], byte[]>> owned) {
+            this(name, client, List.copyOf(connections), List.copyOf(owned), new AtomicInteger());
+        }
+
+        RedisClusterAsyncCommands<byte[], byte[]> next() {
+            int size = connections.size();
+            return size == 1
+                    ? connections.get(0).async()
+                    : connections.get(Math.floorMod(cursor.getAndIncrement(), size)).async();
+        }
+
+        void close() {
+            owned.forEach(StatefulRedisConnection::close);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.globaldashboard.auth.service;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+
+@ConfigurationProperties("auth.session.stateless")
+public class StatelessSessionConfiguration {
+
+    private boolean enabled;
+    private int expectedRevocations = 100_000;
+    private double falsePositiveProbability = 0.01;
+    private Duration retention = Duration.ofHours(1);
+    private Duration tokenLifetime = Duration.ofMinutes(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return revocations expected within one retention period, used to size the Bloom filter
+     */
+    public int getExpectedRevocations() {
+        return expectedRevocations;
+    }
+
+    public void setExpectedRevocations(int expectedRevocations) {
+        this.expectedRevocations = expectedRevocations;
+    }
+
+    /**
+     * @return target false positive rate of the Bloom filter, each false positive costs one Redis lookup
+     */
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    public void setFalsePositiveProbability(double falsePositiveProbability) {
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    /**
+     * @return how long a revocation is remembered, must be at least {@link #getTokenLifetime()}
+     */
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    /**
+     * @return how long access tokens issued in this mode stay valid, at most {@code auth.session.ttl}
+     */
+    public Duration getTokenLifetime() {
+        return tokenLifetime;
+    }
+
+    public void setTokenLifetime(Duration tokenLifetime) {
+        this.tokenLifetime = tokenLifetime;
+    }
+}
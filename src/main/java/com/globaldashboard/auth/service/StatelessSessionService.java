@@ -0,0 +1,137 @@
+package com.globaldashboard.auth.service;
+
+import com.globaldashboard.auth.client.SessionRevocationProducer;
+import com.globaldashboard.auth.event.session.SessionRevokedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Verify mode that trusts the signed, short lived token and checks revocations locally.
+ * <p>
+ * A session is valid unless it was revoked: the {@link RevocationFilter} Bloom filter clears almost every session
+ * without any remote call, a filter match found in the exact revocation set is rejected, and a match missing from the
+ * exact set (a Bloom false positive, at most {@code false-positive-probability} of lookups) falls back to the Redis
+ * check of the delegate. Redis is therefore only on the Verify path for false positives, and a Redis outage only
+ * affects those.
+ * <p>
+ * Sessions are still written to Redis but their expiry is not slid. Access tokens expire
+ * {@code auth.session.stateless.token-lifetime} after they were issued, and sessions are created after that instant
+ * with the longer {@code auth.session.ttl}, so a session key outlives every token bound to it: the Redis fallback only
+ * rejects deleted, that is revoked, sessions and agrees with the filter. Startup fails when revocations would be
+ * forgotten before tokens expire ({@code retention} shorter than {@code token-lifetime}) or when tokens would outlive
+ * their session ({@code token-lifetime} longer than {@code auth.session.ttl}).
+ */
+@Slf4j
+@Primary
+@Singleton
+@Requires(property = "auth.session.stateless.enabled", value = "true")
+public class StatelessSessionService implements SessionService {
+
+    private final DefaultSessionService delegate;
+    private final RevocationFilter revocationFilter;
+    private final SessionRevocationProducer revocationProducer;
+    private final Counter fallbacks;
+
+    public StatelessSessionService(DefaultSessionService delegate,
+            RevocationFilter revocationFilter,
+            SessionRevocationProducer revocationProducer,
+            SessionConfiguration sessionConfiguration,
+            StatelessSessionConfiguration configuration,
+            MeterRegistry meterRegistry) {
+        if (configuration.getRetention().compareTo(configuration.getTokenLifetime()) < 0) {
+            throw new IllegalStateException("auth.session.stateless.retention (" + configuration.getRetention()
+                    + ") must be at least auth.session.stateless.token-lifetime (" + configuration.getTokenLifetime()
+                    + ")");
+        }
+        if (configuration.getTokenLifetime().compareTo(sessionConfiguration.getTtl()) > 0) {
+            throw new IllegalStateException("auth.session.stateless.token-lifetime (" + configuration.getTokenLifetime()
+                    + ") must not exceed auth.session.ttl (" + sessionConfiguration.getTtl() + ")");
+        }
+        this.delegate = delegate;
+        this.revocationFilter = revocationFilter;
+        this.revocationProducer = revocationProducer;
+        this.fallbacks = Counter.builder("auth.sessions.revocation.fallback")
+                .description("Stateless verifications that needed Redis because the revocation filter matched")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CompletionStage<String> createSessionAsync(String username, String userId) {
+        return delegate.createSessionAsync(username, userId);
+    }
+
+    @Override
+    public CompletionStage<Boolean> validateSessionAsync(String sessionId) {
+        if (!revocationFilter.mightBeRevoked(sessionId)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (revocationFilter.isRevoked(sessionId)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        fallbacks.increment();
+        return delegate.validateSessionAsync(sessionId);
+    }
+
+    @Override
+    public CompletionStage<List<Boolean>> validateSessionsAsync(List<String> sessionIds) {
+        List<Boolean> results = new ArrayList<>(sessionIds.size());
+        List<Integer> uncertain = new ArrayList<>();
+        for (String sessionId : sessionIds) {
+            boolean suspect = revocationFilter.mightBeRevoked(sessionId);
+            if (suspect && !revocationFilter.isRevoked(sessionId)) {
+                uncertain.add(results.size());
+            }
+            results.add(!suspect);
+        }
+        if (uncertain.isEmpty()) {
+            return CompletableFuture.completedFuture(results);
+        }
+
+        fallbacks.increment(uncertain.size());
+        List<String> lookups = uncertain.stream().map(sessionIds::get).toList();
+        return delegate.validateSessionsAsync(lookups).thenApply(checked -> {
+            for (int i = 0; i < uncertain.size(); i++) {
+                results.set(uncertain.get(i), checked.get(i));
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public CompletionStage<Void> invalidateSessionAsync(String sessionId) {
+        long revokedAt = System.currentTimeMillis();
+        revocationFilter.revoke(sessionId, revokedAt);
+        revocationProducer.sendRevocation(sessionId, new SessionRevokedEvent(sessionId, revokedAt));
+        return delegate.invalidateSessionAsync(sessionId);
+    }
+
+    @Override
+    public CompletionStage<List<String>> listSessionsAsync(String userId) {
+        return delegate.listSessionsAsync(userId);
+    }
+
+    /**
+     * Revokes every indexed session, not only the live ones: a session whose key expired may still have an unexpired
+     * token that this mode would otherwise accept.
+     */
+    @Override
+    public CompletionStage<Integer> invalidateUserSessionsAsync(String userId) {
+        return delegate.indexedSessionsAsync(userId)
+                .thenCompose(sessionIds -> {
+                    long revokedAt = System.currentTimeMillis();
+                    for (String sessionId : sessionIds) {
+                        revocationFilter.revoke(sessionId, revokedAt);
+                        revocationProducer.sendRevocation(sessionId, new SessionRevokedEvent(sessionId, revokedAt));
+                    }
+                    return delegate.invalidateUserSessionsAsync(userId);
+                });
+    }
+}
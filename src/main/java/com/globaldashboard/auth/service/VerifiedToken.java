@@ -0,0 +1,50 @@
+package com.globaldashboard.auth.service;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.security.authentication.Authentication;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Claims of a JWT whose signature and expiration have been checked.
+ *
+ * @param sessionId value of the {@code jti} claim
+ * @param subject   value of the {@code sub} claim
+ * @param userId    value of the {@code uid} claim, {@code null} for tokens issued before it was added
+ * @param roles     roles granted by the token
+ * @param expiresAt value of the {@code exp} claim, {@code null} if the token does not expire
+ */
+public record VerifiedToken(String sessionId, String subject, @Nullable String userId, List<String> roles,
+        @Nullable Instant expiresAt) {
+
+    /**
+     * @return the claims of the authentication, or {@code null} if it has no {@code jti}
+     */
+    @Nullable
+    public static VerifiedToken from(Authentication authentication) {
+        Object jti = authentication.getAttributes().get("jti");
+        if (jti == null) {
+            return null;
+        }
+        Object uid = authentication.getAttributes().get("uid");
+        Collection<String> roles = authentication.getRoles();
+        return new VerifiedToken(jti.toString(), authentication.getName(), uid != null ? uid.toString() : null,
+                List.copyOf(roles), toInstant(authentication.getAttributes().get("exp")));
+    }
+
+    @Nullable
+    private static Instant toInstant(@Nullable Object exp) {
+        if (exp instanceof Date date) {
+            return date.toInstant();
+        }
+        if (exp instanceof Instant instant) {
+            return instant;
+        }
+        if (exp instanceof Number seconds) {
+            return Instant.ofEpochSecond(seconds.longValue());
+        }
+        return null;
+    }
+}
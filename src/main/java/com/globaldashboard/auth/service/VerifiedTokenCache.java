@@ -0,0 +1,76 @@
+package com.globaldashboard.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Tokens whose signature has already been verified, so that a token presented again skips parsing and the HMAC
+ * check. Entries are keyed by the SHA-256 of the token and never outlive its {@code exp} claim. Only the signature
+ * work is saved, the session still has to be checked on every call.
+ */
+@Singleton
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    @Nullable
+    private final Cache<ByteBuffer, VerifiedToken> cache;
+    private final Duration maximumTtl;
+
+    public VerifiedTokenCache(VerifiedTokenCacheConfiguration configuration, MeterRegistry meterRegistry) {
+        this.maximumTtl = configuration.getMaximumTtl();
+        if (configuration.isEnabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(configuration.getMaximumSize())
+                    .expireAfter(Expiry.<ByteBuffer, VerifiedToken>creating((key, token) -> timeToLive(token)))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.tokens");
+        } else {
+            this.cache = null;
+        }
+    }
+
+    @Nullable
+    public VerifiedToken get(String token) {
+        return cache == null ? null : cache.getIfPresent(digest(token));
+    }
+
+    public void put(String token, VerifiedToken verifiedToken) {
+        if (cache != null && !timeToLive(verifiedToken).isZero()) {
+            cache.put(digest(token), verifiedToken);
+        }
+    }
+
+    private Duration timeToLive(VerifiedToken token) {
+        if (token.expiresAt() == null) {
+            return maximumTtl;
+        }
+        Duration remaining = Duration.between(Instant.now(), token.expiresAt());
+        if (remaining.isNegative()) {
+            return Duration.ZERO;
+        }
+        return remaining.compareTo(maximumTtl) < 0 ? remaining : maximumTtl;
+    }
+
+    private static ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,42 @@
+package com.globaldashboard.auth.service;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+
+@ConfigurationProperties("auth.token.cache")
+public class VerifiedTokenCacheConfiguration {
+
+    private boolean enabled = true;
+    private long maximumSize = 100_000;
+    private Duration maximumTtl = Duration.ofHours(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return maximum number of verified tokens kept
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return how long a token is kept at most, entries always expire no later than the token itself
+     */
+    public Duration getMaximumTtl() {
+        return maximumTtl;
+    }
+
+    public void setMaximumTtl(Duration maximumTtl) {
+        this.maximumTtl = maximumTtl;
+    }
+}
@@ -2,42 +2,228 @@ package com.globaldashboard.auth.client;
 
 import com.globaldashboard.auth.event.user.UserEvent;
 import com.globaldashboard.auth.event.user.UserFindRequest;
+import com.globaldashboard.auth.event.user.UserPasswordUpdateRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.apache.kafka.common.KafkaException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class DefaultKafkaUserClientTest {
 
+    private static final ReplyAddress REPLY_ADDRESS = new ReplyAddress("persistence.users.events", 3, 4);
+
     @Mock
     UserRequestProducer producer;
 
     @Mock
     PendingRequestsRegistry registry;
 
-    @InjectMocks
+    @Captor
+    ArgumentCaptor<Throwable> failure;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    UserCredentialCache credentialCache;
+
     DefaultKafkaUserClient client;
 
+    @BeforeEach
+    void setUp() {
+        credentialCache = new UserCredentialCache(new UserCredentialCacheConfiguration(), meterRegistry);
+        client = new DefaultKafkaUserClient(producer, registry, new PendingRequestsConfiguration(), credentialCache,
+                meterRegistry, REPLY_ADDRESS, Optional.empty());
+        lenient().when(producer.sendFindRequest(any(), any(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(producer.sendCreateRequest(any(), any(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @Test
     void testFindUser() {
         String username = "testuser";
-        CompletableFuture<UserEvent> future = new CompletableFuture<>();
-        when(registry.register(username)).thenReturn(future);
+        PendingReply future = new PendingReply(7L);
+        when(registry.register(Duration.ofSeconds(5))).thenReturn(future);
 
         CompletableFuture<UserEvent> result = client.findUser(username);
 
-        Assertions.assertEquals(future, result);
-        verify(registry).register(username);
-        verify(producer).sendFindRequest(eq(username), any(UserFindRequest.class));
+        Assertions.assertFalse(result.isDone());
+        verify(registry).register(Duration.ofSeconds(5));
+        verify(producer).sendFindRequest(eq(username), eq(new UserFindRequest(7L, username)),
+                eq(REPLY_ADDRESS.topicHeader()), eq(REPLY_ADDRESS.partitionHeader()));
+
+        UserEvent event = new UserEvent(7L, 1L, username, "e", "p", UserEvent.EventType.FOUND, null);
+        future.complete(event);
+        Assertions.assertEquals(event, result.join());
+    }
+
+    @Test
+    void testConcurrentFindUserSharesOneRequest() {
+        String username = "popular";
+        PendingReply first = new PendingReply(1L);
+        PendingReply second = new PendingReply(2L);
+        when(registry.register(Duration.ofSeconds(5))).thenReturn(first, second);
+
+        CompletableFuture<UserEvent> a = client.findUser(username);
+        CompletableFuture<UserEvent> b = client.findUser(username);
+
+        verify(producer, times(1)).sendFindRequest(eq(username), any(UserFindRequest.class), any(), any());
+        Assertions.assertEquals(1.0, meterRegistry.get("auth.kafka.find.coalesced").counter().count());
+
+        // Cancelling one caller does not affect the shared request
+        a.cancel(false);
+        UserEvent event = new UserEvent(1L, 1L, username, "e", "p", UserEvent.EventType.FOUND, null);
+        first.complete(event);
+        Assertions.assertEquals(event, b.join());
+
+        // Once completed, the next lookup goes to Kafka again
+        client.findUser(username);
+        verify(producer).sendFindRequest(eq(username), eq(new UserFindRequest(2L, username)), any(), any());
+    }
+
+    @Test
+    void testFindUserFailureIsSharedAndCleared() {
+        String username = "failing";
+        when(registry.register(Duration.ofSeconds(5)))
+                .thenThrow(new RejectedExecutionException("full"))
+                .thenReturn(new PendingReply(3L));
+
+        CompletableFuture<UserEvent> failed = client.findUser(username);
+        Assertions.assertTrue(failed.isCompletedExceptionally());
+
+        client.findUser(username);
+        verify(producer).sendFindRequest(eq(username), eq(new UserFindRequest(3L, username)), any(), any());
+    }
+
+    @Test
+    void testPasswordUpdateIsConditionalAndLeavesTheCacheToPersistence() {
+        String username = "rehashed";
+        credentialCache.onEvent(new UserEvent(9L, 1L, username, "e", "old", UserEvent.EventType.FOUND, null));
+        when(producer.sendPasswordUpdateRequest(eq(username), any()))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker down")));
+
+        client.updatePassword(1L, username, "old", "new");
+
+        verify(producer).sendPasswordUpdateRequest(username,
+                new UserPasswordUpdateRequest(1L, username, "new", "old"));
+        // Until persistence publishes UPDATED the stored hash is still the old one
+        Assertions.assertEquals("old", credentialCache.get(username).password());
+    }
+
+    @Test
+    void testFindUserServesCachedRecordWithoutKafka() {
+        String username = "cached";
+        credentialCache.onEvent(new UserEvent(9L, 1L, username, "e", "hash", UserEvent.EventType.FOUND, null));
+
+        UserEvent result = client.findUser(username).join();
+
+        Assertions.assertEquals(1L, result.id());
+        Assertions.assertEquals("hash", result.password());
+        verifyNoInteractions(registry, producer);
+    }
+
+    @Test
+    void testRoundTripIsTimedByOutcome() {
+        PendingReply found = new PendingReply(1L);
+        PendingReply timedOut = new PendingReply(2L);
+        when(registry.register(Duration.ofSeconds(5))).thenReturn(found, timedOut);
+
+        client.findUser("first");
+        client.findUser("second");
+        found.complete(new UserEvent(1L, 1L, "first", "e", "p", UserEvent.EventType.FOUND, null));
+        timedOut.completeExceptionally(new TimeoutException());
+
+        Assertions.assertEquals(1, meterRegistry.get("auth.kafka.request.duration")
+                .tags("operation", "find", "outcome", "found").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get("auth.kafka.request.duration")
+                .tags("operation", "find", "outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void testRoundTripTimersAreRegisteredUpFront() {
+        // Two operations, each with the six reply types plus timeout and error
+        Assertions.assertEquals(16, meterRegistry.find("auth.kafka.request.duration").timers().size());
+    }
+
+    @Test
+    void testFailedSendFailsThePendingReply() {
+        PendingReply future = new PendingReply(4L);
+        when(registry.register(Duration.ofSeconds(5))).thenReturn(future);
+        KafkaException error = new KafkaException("broker unreachable");
+        when(producer.sendCreateRequest(eq("new"), any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(error));
+
+        client.createUser("new", "e", "hash");
+
+        verify(registry).fail(eq(future), failure.capture());
+        Assertions.assertInstanceOf(PersistenceUnavailableException.class, failure.getValue());
+        Assertions.assertSame(error, failure.getValue().getCause());
+    }
+
+    @Test
+    void testSendThrowingFailsThePendingReply() {
+        PendingReply future = new PendingReply(5L);
+        when(registry.register(Duration.ofSeconds(5))).thenReturn(future);
+        when(producer.sendFindRequest(eq("down"), any(), any(), any()))
+                .thenThrow(new KafkaException("metadata not available"));
+
+        client.findUser("down");
+
+        verify(registry).fail(eq(future), any(PersistenceUnavailableException.class));
+    }
+
+    @Test
+    void testFailedSendIsCompletedOnTheCompletionExecutor() throws InterruptedException {
+        BlockingQueue<Runnable> completions = new LinkedBlockingQueue<>();
+        PendingRequestsRegistry pending = new PendingRequestsRegistry(new PendingRequestsConfiguration(),
+                completions::add, new SimpleMeterRegistry());
+        ExecutorService producerThread = Executors.newSingleThreadExecutor();
+        try {
+            DefaultKafkaUserClient sending = new DefaultKafkaUserClient(producer, pending,
+                    new PendingRequestsConfiguration(), credentialCache, new SimpleMeterRegistry(), REPLY_ADDRESS,
+                    Optional.empty());
+            when(producer.sendCreateRequest(eq("new"), any(), any(), any()))
+                    .thenReturn(CompletableFuture.supplyAsync(() -> {
+                        throw new KafkaException("broker unreachable");
+                    }, producerThread));
+
+            CompletableFuture<UserEvent> reply = sending.createUser("new", "e", "hash");
+
+            // Released as soon as the send fails, but the caller's stages wait for the completion executor
+            Runnable completion = completions.poll(2, TimeUnit.SECONDS);
+            Assertions.assertNotNull(completion);
+            Assertions.assertEquals(0, pending.size());
+            Assertions.assertFalse(reply.isDone());
+            completion.run();
+            Assertions.assertTrue(reply.isCompletedExceptionally());
+        } finally {
+            producerThread.shutdown();
+            pending.close();
+        }
     }
 }
@@ -1,34 +1,247 @@
 package com.globaldashboard.auth.client;
 
 import com.globaldashboard.auth.event.user.UserEvent;
-import java.util.concurrent.CompletableFuture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 class PendingRequestsRegistryTest {
 
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<PendingRequestsRegistry> registries = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        registries.forEach(PendingRequestsRegistry::close);
+    }
+
     @Test
     void testRegisterAndComplete() throws ExecutionException, InterruptedException, TimeoutException {
-        PendingRequestsRegistry registry = new PendingRequestsRegistry();
+        PendingRequestsRegistry registry = newRegistry(new PendingRequestsConfiguration());
         String username = "testuser";
 
-        CompletableFuture<UserEvent> future = registry.register(username);
+        PendingReply future = registry.register(TIMEOUT);
         Assertions.assertFalse(future.isDone());
 
-        UserEvent event = new UserEvent(1L, username, "email", "pass", UserEvent.EventType.FOUND, "msg");
-        registry.complete(username, event);
+        UserEvent event = new UserEvent(future.correlationId(), 1L, username, "email", "pass",
+                UserEvent.EventType.FOUND, "msg");
+        registry.complete(event);
 
         Assertions.assertTrue(future.isDone());
         Assertions.assertEquals(event, future.get(1, TimeUnit.SECONDS));
     }
 
+    @Test
+    void testConcurrentRequestsForSameUserAreCompletedIndependently() throws Exception {
+        PendingRequestsRegistry registry = newRegistry(new PendingRequestsConfiguration());
+
+        PendingReply first = registry.register(TIMEOUT);
+        PendingReply second = registry.register(TIMEOUT);
+        Assertions.assertNotEquals(first.correlationId(), second.correlationId());
+
+        UserEvent secondReply = new UserEvent(second.correlationId(), 1L, "same", "e", "p",
+                UserEvent.EventType.FOUND, null);
+        registry.complete(secondReply);
+
+        Assertions.assertFalse(first.isDone());
+        Assertions.assertEquals(secondReply, second.get(1, TimeUnit.SECONDS));
+
+        UserEvent firstReply = new UserEvent(first.correlationId(), 1L, "same", "e", "p",
+                UserEvent.EventType.FOUND, null);
+        registry.complete(firstReply);
+        Assertions.assertEquals(firstReply, first.get(1, TimeUnit.SECONDS));
+    }
+
     @Test
     void testCompleteUnknownUser() {
-        PendingRequestsRegistry registry = new PendingRequestsRegistry();
+        PendingRequestsRegistry registry = newRegistry(new PendingRequestsConfiguration());
         // Should not throw exception
-        registry.complete("unknown", new UserEvent(1L, "u", "e", "p", UserEvent.EventType.FOUND, "m"));
+        registry.complete(new UserEvent(42L, 1L, "u", "e", "p", UserEvent.EventType.FOUND, "m"));
+        registry.complete(new UserEvent(null, 1L, "u", "e", "p", UserEvent.EventType.CREATED, "m"));
+    }
+
+    @Test
+    void testRegisterRejectsWhenTooManyRequestsArePending() {
+        PendingRequestsConfiguration configuration = new PendingRequestsConfiguration();
+        configuration.setMaxPending(4);
+        PendingRequestsRegistry registry = newRegistry(configuration);
+        for (int i = 0; i < 4; i++) {
+            registry.register(TIMEOUT);
+        }
+
+        Assertions.assertThrows(RejectedExecutionException.class, () -> registry.register(TIMEOUT));
+        Assertions.assertEquals(1.0, meterRegistry.get("auth.kafka.pending.rejected").counter().count());
+    }
+
+    @Test
+    void testConcurrentRegistrationsDoNotOvershootTheCap() throws Exception {
+        PendingRequestsConfiguration configuration = new PendingRequestsConfiguration();
+        configuration.setMaxPending(64);
+        PendingRequestsRegistry registry = newRegistry(configuration);
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int caller = 0; caller < 8; caller++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 32; i++) {
+                        try {
+                            registry.register(TIMEOUT);
+                            accepted.incrementAndGet();
+                        } catch (RejectedExecutionException e) {
+                            // Over the cap
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        Assertions.assertEquals(64, accepted.get());
+        Assertions.assertEquals(64, registry.size());
+    }
+
+    @Test
+    void testUnansweredRequestExpires() {
+        PendingRequestsConfiguration configuration = new PendingRequestsConfiguration();
+        configuration.setTickDuration(Duration.ofMillis(10));
+        PendingRequestsRegistry registry = newRegistry(configuration);
+
+        PendingReply future = registry.register(Duration.ofMillis(50));
+
+        ExecutionException error = Assertions.assertThrows(ExecutionException.class,
+                () -> future.get(2, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(TimeoutException.class, error.getCause());
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertEquals(1.0, meterRegistry.get("auth.kafka.pending.expired").counter().count());
+
+        // A late reply is ignored
+        registry.complete(new UserEvent(future.correlationId(), 1L, "late", "e", "p",
+                UserEvent.EventType.FOUND, null));
+    }
+
+    @Test
+    void testCompletedRequestReleasesItsSlot() {
+        PendingRequestsRegistry registry = newRegistry(new PendingRequestsConfiguration());
+
+        PendingReply future = registry.register(TIMEOUT);
+        Assertions.assertEquals(1, registry.size());
+        registry.complete(new UserEvent(future.correlationId(), 1L, "u", "e", "p", UserEvent.EventType.FOUND, null));
+
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertEquals(0, meterRegistry.get("auth.kafka.pending.size").gauge().value());
+    }
+
+    @Test
+    void testFailedRequestReleasesItsSlotImmediately() {
+        PendingRequestsRegistry registry = newRegistry(new PendingRequestsConfiguration());
+
+        PendingReply future = registry.register(TIMEOUT);
+        registry.fail(future, new IllegalStateException("send failed"));
+
+        Assertions.assertTrue(future.isCompletedExceptionally());
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertEquals(1.0, meterRegistry.get("auth.kafka.pending.failed").counter().count());
+
+        // A reply arriving anyway is ignored
+        registry.complete(new UserEvent(future.correlationId(), 1L, "u", "e", "p", UserEvent.EventType.FOUND, null));
+        Assertions.assertEquals(1.0, meterRegistry.get("auth.kafka.pending.failed").counter().count());
+    }
+
+    @Test
+    void testReplyIsCompletedOnTheGivenExecutor() {
+        PendingRequestsRegistry registry = newRegistry(new PendingRequestsConfiguration());
+        List<Runnable> completions = new ArrayList<>();
+
+        PendingReply future = registry.register(TIMEOUT);
+        registry.complete(new UserEvent(future.correlationId(), 1L, "u", "e", "p", UserEvent.EventType.FOUND, null),
+                completions::add);
+
+        // Matched and released right away, completed once the executor runs
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertFalse(future.isDone());
+        completions.forEach(Runnable::run);
+        Assertions.assertEquals("u", future.join().username());
+    }
+
+    @Test
+    void testTimeoutIsCompletedOnTheRegistryExecutor() throws InterruptedException {
+        PendingRequestsConfiguration configuration = new PendingRequestsConfiguration();
+        configuration.setTickDuration(Duration.ofMillis(10));
+        BlockingQueue<Runnable> completions = new LinkedBlockingQueue<>();
+        PendingRequestsRegistry registry = newRegistry(configuration, completions::add);
+
+        PendingReply future = registry.register(Duration.ofMillis(50));
+
+        // Expired and released by the timer thread, completed once the executor runs
+        Runnable completion = completions.poll(2, TimeUnit.SECONDS);
+        Assertions.assertNotNull(completion);
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertFalse(future.isDone());
+        completion.run();
+        ExecutionException error = Assertions.assertThrows(ExecutionException.class, future::get);
+        Assertions.assertInstanceOf(TimeoutException.class, error.getCause());
+    }
+
+    @Test
+    void testFailureIsCompletedOnTheRegistryExecutor() {
+        List<Runnable> completions = new ArrayList<>();
+        PendingRequestsRegistry registry = newRegistry(new PendingRequestsConfiguration(), completions::add);
+
+        PendingReply future = registry.register(TIMEOUT);
+        registry.fail(future, new IllegalStateException("send failed"));
+
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertFalse(future.isDone());
+        completions.forEach(Runnable::run);
+        Assertions.assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    void testCompletionRunsInlineOnceTheExecutorIsShutDown() {
+        PendingRequestsRegistry registry = newRegistry(new PendingRequestsConfiguration(), command -> {
+            throw new RejectedExecutionException("shut down");
+        });
+
+        PendingReply future = registry.register(TIMEOUT);
+        registry.fail(future, new IllegalStateException("send failed"));
+
+        Assertions.assertTrue(future.isCompletedExceptionally());
+    }
+
+    private PendingRequestsRegistry newRegistry(PendingRequestsConfiguration configuration) {
+        return newRegistry(configuration, Runnable::run);
+    }
+
+    private PendingRequestsRegistry newRegistry(PendingRequestsConfiguration configuration, Executor completions) {
+        PendingRequestsRegistry registry = new PendingRequestsRegistry(configuration, completions, meterRegistry);
+        registries.add(registry);
+        return registry;
     }
 }
@@ -0,0 +1,227 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.user.UserCreateRequest;
+import com.globaldashboard.auth.event.user.UserEvent;
+import com.globaldashboard.auth.event.user.UserFindRequest;
+import com.globaldashboard.auth.event.user.UserPasswordUpdateRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Several instances sharing the reply topic, with an in-process stand-in for the broker and the persistence service
+ * that answers each request on the partition named in its reply headers.
+ */
+class ReplyRoutingTest {
+
+    private static final String REPLY_TOPIC = "persistence.users.events";
+    private static final int INSTANCES = 4;
+    private static final int REQUESTS_PER_INSTANCE = 50;
+
+    private final Map<Integer, MockConsumer<String, UserEvent>> partitions = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> offsets = new ConcurrentHashMap<>();
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService completions = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable resource : resources) {
+            resource.close();
+        }
+        completions.shutdown();
+    }
+
+    @Test
+    void testEveryReplyReachesTheInstanceThatAsked() {
+        List<DefaultKafkaUserClient> clients = IntStream.range(0, INSTANCES).mapToObj(this::startInstance).toList();
+
+        List<CompletableFuture<UserEvent>> lookups = new ArrayList<>();
+        List<String> usernames = new ArrayList<>();
+        for (int request = 0; request < REQUESTS_PER_INSTANCE; request++) {
+            for (int instance = 0; instance < INSTANCES; instance++) {
+                String username = "user-" + instance + "-" + request;
+                usernames.add(username);
+                lookups.add(clients.get(instance).findUser(username));
+            }
+        }
+
+        for (int i = 0; i < lookups.size(); i++) {
+            UserEvent reply = lookups.get(i).orTimeout(5, TimeUnit.SECONDS).join();
+            Assertions.assertEquals(usernames.get(i), reply.username());
+        }
+        Assertions.assertEquals(lookups.size(),
+                meterRegistry.get("auth.kafka.replies.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void testTopicMustHaveTheConfiguredPartitions() {
+        UserReplyConsumer replies = new UserReplyConsumer(newRegistry(), newCache());
+
+        // Default single partition setup against a topic persistence could spread replies over
+        IllegalStateException tooFew = Assertions.assertThrows(IllegalStateException.class,
+                () -> new UserReplyListener(newConsumer(), new ReplyAddress(REPLY_TOPIC, 0, 1), replies,
+                        completions, meterRegistry));
+        Assertions.assertTrue(tooFew.getMessage().contains("has " + INSTANCES + " partitions"));
+        IllegalStateException tooMany = Assertions.assertThrows(IllegalStateException.class,
+                () -> new UserReplyListener(newConsumer(), new ReplyAddress(REPLY_TOPIC, 0, INSTANCES + 1), replies,
+                        completions, meterRegistry));
+        Assertions.assertTrue(tooMany.getMessage().contains("auth.kafka.replies.partitions is " + (INSTANCES + 1)));
+    }
+
+    @Test
+    void testPartitionIsTheStatefulSetOrdinal() {
+        ReplyRoutingConfiguration configuration = new ReplyRoutingConfiguration();
+        configuration.setPartitions(4);
+
+        configuration.setInstanceId("global-dashboard-auth-2");
+        Assertions.assertEquals(2, ReplyAddress.partitionOf(configuration));
+
+        configuration.setPartition(3);
+        Assertions.assertEquals(3, ReplyAddress.partitionOf(configuration));
+    }
+
+    @Test
+    void testInstancesThatCouldShareAPartitionFailToStart() {
+        ReplyRoutingConfiguration configuration = new ReplyRoutingConfiguration();
+        configuration.setPartitions(4);
+
+        // Deployment pod names have no ordinal
+        configuration.setInstanceId("global-dashboard-auth-7d9f8c6b5-x2k5q");
+        Assertions.assertThrows(IllegalStateException.class, () -> ReplyAddress.partitionOf(configuration));
+
+        // More replicas than partitions
+        configuration.setInstanceId("global-dashboard-auth-6");
+        Assertions.assertThrows(IllegalStateException.class, () -> ReplyAddress.partitionOf(configuration));
+
+        configuration.setPartition(4);
+        Assertions.assertThrows(IllegalStateException.class, () -> ReplyAddress.partitionOf(configuration));
+    }
+
+    @Test
+    void testSinglePartitionIsShared() {
+        ReplyRoutingConfiguration configuration = new ReplyRoutingConfiguration();
+        configuration.setInstanceId("global-dashboard-auth-7d9f8c6b5-x2k5q");
+
+        Assertions.assertEquals(0, ReplyAddress.partitionOf(configuration));
+    }
+
+    @Test
+    void testReplySentBeforeTheFirstPollIsRead() throws Exception {
+        PendingRequestsRegistry registry = newRegistry();
+        MockConsumer<String, UserEvent> consumer = newConsumer();
+        TopicPartition partition = new TopicPartition(REPLY_TOPIC, 0);
+        // Replies already in the partition before this instance started
+        consumer.updateEndOffsets(Map.of(partition, 5L));
+
+        UserReplyListener listener = new UserReplyListener(consumer, new ReplyAddress(REPLY_TOPIC, 0, INSTANCES),
+                new UserReplyConsumer(registry, newCache()), completions, meterRegistry);
+        resources.add(listener);
+
+        // The reply is written, moving the end of the partition, before a lazily positioned consumer would look it up
+        PendingReply reply = registry.register(Duration.ofSeconds(5));
+        consumer.updateEndOffsets(Map.of(partition, 6L));
+        consumer.addRecord(new ConsumerRecord<>(REPLY_TOPIC, 0, 5L, "late", new UserEvent(reply.correlationId(), 1L,
+                "late", null, "hash", UserEvent.EventType.FOUND, null)));
+
+        Assertions.assertEquals("late", reply.get(5, TimeUnit.SECONDS).username());
+    }
+
+    private DefaultKafkaUserClient startInstance(int partition) {
+        PendingRequestsRegistry registry = newRegistry();
+        UserCredentialCache credentialCache = newCache();
+        ReplyAddress address = new ReplyAddress(REPLY_TOPIC, partition, INSTANCES);
+
+        MockConsumer<String, UserEvent> consumer = newConsumer();
+        partitions.put(partition, consumer);
+        offsets.put(partition, new AtomicLong());
+        UserReplyListener listener = new UserReplyListener(consumer, address,
+                new UserReplyConsumer(registry, credentialCache), completions, meterRegistry);
+        resources.add(listener);
+
+        return new DefaultKafkaUserClient(new Persistence(), registry, new PendingRequestsConfiguration(),
+                credentialCache, new SimpleMeterRegistry(), address, Optional.of(listener));
+    }
+
+    private MockConsumer<String, UserEvent> newConsumer() {
+        MockConsumer<String, UserEvent> consumer = new MockConsumer<>(OffsetResetStrategy.LATEST);
+        consumer.updatePartitions(REPLY_TOPIC, IntStream.range(0, INSTANCES)
+                .mapToObj(partition -> new PartitionInfo(REPLY_TOPIC, partition, null, null, null))
+                .toList());
+        Map<TopicPartition, Long> start = new HashMap<>();
+        for (int partition = 0; partition < INSTANCES; partition++) {
+            start.put(new TopicPartition(REPLY_TOPIC, partition), 0L);
+        }
+        consumer.updateBeginningOffsets(start);
+        consumer.updateEndOffsets(start);
+        return consumer;
+    }
+
+    private PendingRequestsRegistry newRegistry() {
+        PendingRequestsRegistry registry = new PendingRequestsRegistry(new PendingRequestsConfiguration(), completions,
+                new SimpleMeterRegistry());
+        resources.add(registry::close);
+        return registry;
+    }
+
+    private static UserCredentialCache newCache() {
+        return new UserCredentialCache(new UserCredentialCacheConfiguration(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * The persistence service: replies to the address in the headers, through the broker.
+     */
+    private class Persistence implements UserRequestProducer {
+
+        @Override
+        public CompletableFuture<RecordMetadata> sendFindRequest(String username, UserFindRequest request,
+                byte[] replyTopic, byte[] replyPartition) {
+            reply(replyTopic, replyPartition, new UserEvent(request.correlationId(), 1L, username, null, "hash",
+                    UserEvent.EventType.FOUND, null));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<RecordMetadata> sendCreateRequest(String username, UserCreateRequest request,
+                byte[] replyTopic, byte[] replyPartition) {
+            reply(replyTopic, replyPartition, new UserEvent(request.correlationId(), 1L, username, request.email(),
+                    null, UserEvent.EventType.CREATED, null));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<RecordMetadata> sendPasswordUpdateRequest(String username,
+                UserPasswordUpdateRequest request) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        private void reply(byte[] replyTopic, byte[] replyPartition, UserEvent event) {
+            String topic = new String(replyTopic, StandardCharsets.UTF_8);
+            int partition = ByteBuffer.wrap(replyPartition).getInt();
+            partitions.get(partition).addRecord(new ConsumerRecord<>(topic, partition,
+                    offsets.get(partition).getAndIncrement(), event.username(), event));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.user.UserEvent;
+import com.globaldashboard.auth.event.user.UserEvent.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserChangeConsumerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PendingRequestsRegistry registry = new PendingRequestsRegistry(new PendingRequestsConfiguration(),
+            Runnable::run, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    void receive_ShouldApplyChangeEventsOnEveryInstance() {
+        UserCredentialCache first = newCache();
+        UserCredentialCache second = newCache();
+        first.onEvent(new UserEvent(1L, 1L, "user", null, "old", EventType.FOUND, null));
+        second.onEvent(new UserEvent(2L, 1L, "user", null, "old", EventType.FOUND, null));
+
+        // Each instance has its own group, so both receive the change
+        UserEvent updated = new UserEvent(null, 1L, "user", null, "new", EventType.UPDATED, null);
+        new UserChangeConsumer(first).receive(updated);
+        new UserChangeConsumer(second).receive(updated);
+
+        assertEquals("new", first.get("user").password());
+        assertEquals("new", second.get("user").password());
+    }
+
+    @Test
+    void receive_ShouldIgnoreReplies() {
+        UserCredentialCache cache = newCache();
+
+        new UserChangeConsumer(cache).receive(new UserEvent(7L, 1L, "user", null, "hash", EventType.FOUND, null));
+
+        assertNull(cache.get("user"));
+    }
+
+    @Test
+    void replyConsumer_ShouldLeaveChangeEventsToTheChangeConsumer() {
+        UserCredentialCache cache = newCache();
+        cache.onEvent(new UserEvent(1L, 1L, "user", null, "hash", EventType.FOUND, null));
+
+        new UserReplyConsumer(registry, cache).receive(new UserEvent(null, 1L, "user", null, null, EventType.DELETED,
+                null));
+
+        assertNotNull(cache.get("user"));
+    }
+
+    private UserCredentialCache newCache() {
+        return new UserCredentialCache(new UserCredentialCacheConfiguration(), meterRegistry);
+    }
+}
@@ -0,0 +1,56 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.user.UserEvent;
+import com.globaldashboard.auth.event.user.UserEvent.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCredentialCacheTest {
+
+    private final UserCredentialCache cache = new UserCredentialCache(new UserCredentialCacheConfiguration(),
+            new SimpleMeterRegistry());
+
+    @Test
+    void onEvent_ShouldCacheOnlyCredentialFields() {
+        cache.onEvent(new UserEvent(5L, 1L, "user", "user@test.com", "hash", EventType.CREATED, "created"));
+
+        UserEvent cached = cache.get("user");
+        assertNotNull(cached);
+        assertEquals(1L, cached.id());
+        assertEquals("hash", cached.password());
+        assertEquals(EventType.FOUND, cached.type());
+        assertNull(cached.email());
+        assertNull(cached.correlationId());
+    }
+
+    @Test
+    void onEvent_ShouldReplaceRecord_WhenUserIsUpdated() {
+        cache.onEvent(new UserEvent(null, 1L, "user", null, "old", EventType.FOUND, null));
+        cache.onEvent(new UserEvent(null, 1L, "user", null, "new", EventType.UPDATED, null));
+
+        assertEquals("new", cache.get("user").password());
+    }
+
+    @Test
+    void onEvent_ShouldInvalidate_OnDeleteNotFoundAndError() {
+        for (EventType type : new EventType[] {EventType.DELETED, EventType.NOT_FOUND, EventType.ERROR}) {
+            cache.onEvent(new UserEvent(null, 1L, "user", null, "hash", EventType.FOUND, null));
+            cache.onEvent(new UserEvent(null, null, "user", null, null, type, null));
+
+            assertNull(cache.get("user"), type.name());
+        }
+    }
+
+    @Test
+    void get_ShouldReturnNull_WhenDisabled() {
+        UserCredentialCacheConfiguration configuration = new UserCredentialCacheConfiguration();
+        configuration.setEnabled(false);
+        UserCredentialCache disabled = new UserCredentialCache(configuration, new SimpleMeterRegistry());
+
+        disabled.onEvent(new UserEvent(null, 1L, "user", null, "hash", EventType.FOUND, null));
+
+        assertNull(disabled.get("user"));
+    }
+}
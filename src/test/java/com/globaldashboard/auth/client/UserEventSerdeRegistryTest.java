@@ -0,0 +1,95 @@
+package com.globaldashboard.auth.client;
+
+import com.globaldashboard.auth.event.user.UserCreateRequest;
+import com.globaldashboard.auth.event.user.UserEvent;
+import com.globaldashboard.auth.event.user.UserFindRequest;
+import com.globaldashboard.auth.event.user.UserPasswordUpdateRequest;
+import io.micronaut.json.JsonMapper;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serde;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class UserEventSerdeRegistryTest {
+
+    private static final String TOPIC = "persistence.users.events";
+
+    private final JsonMapper jsonMapper = JsonMapper.createDefault();
+
+    @Test
+    void testProtobufRoundTrip() {
+        Serde<UserEvent> serde = registry(WireFormat.PROTOBUF).getSerde(UserEvent.class);
+        UserEvent event = new UserEvent(7L, 1L, "jane", "jane@example.com", "$2a$12$hash", UserEvent.EventType.FOUND,
+                null);
+
+        byte[] bytes = serde.serializer().serialize(TOPIC, event);
+
+        Assertions.assertNotEquals('{', bytes[0]);
+        Assertions.assertEquals(event, serde.deserializer().deserialize(TOPIC, bytes));
+    }
+
+    @Test
+    void testPasswordUpdateKeepsThePreviousHash() {
+        Serde<UserPasswordUpdateRequest> serde = registry(WireFormat.PROTOBUF)
+                .getSerde(UserPasswordUpdateRequest.class);
+        UserPasswordUpdateRequest request = new UserPasswordUpdateRequest(1L, "jane", "$2a$12$new", "$2a$10$old");
+
+        Assertions.assertEquals(request, serde.deserializer().deserialize(TOPIC,
+                serde.serializer().serialize(TOPIC, request)));
+    }
+
+    @Test
+    void testProtobufKeepsNullFields() {
+        Serde<UserEvent> serde = registry(WireFormat.PROTOBUF).getSerde(UserEvent.class);
+        UserEvent notFound = new UserEvent(null, null, "ghost", null, null, UserEvent.EventType.NOT_FOUND, null);
+
+        Assertions.assertEquals(notFound,
+                serde.deserializer().deserialize(TOPIC, serde.serializer().serialize(TOPIC, notFound)));
+    }
+
+    @Test
+    void testProtobufIsSmallerThanJson() {
+        UserCreateRequest request = new UserCreateRequest(123456789L, "jane", "jane@example.com", "$2a$12$hash");
+
+        byte[] protobuf = registry(WireFormat.PROTOBUF).getSerde(UserCreateRequest.class).serializer()
+                .serialize(TOPIC, request);
+        byte[] json = registry(WireFormat.JSON).getSerde(UserCreateRequest.class).serializer()
+                .serialize(TOPIC, request);
+
+        Assertions.assertTrue(protobuf.length < json.length, protobuf.length + " >= " + json.length);
+    }
+
+    @Test
+    void testEitherFormatIsRead() {
+        UserFindRequest request = new UserFindRequest(3L, "jane");
+        byte[] json = registry(WireFormat.JSON).getSerde(UserFindRequest.class).serializer().serialize(TOPIC, request);
+        byte[] protobuf = registry(WireFormat.PROTOBUF).getSerde(UserFindRequest.class).serializer()
+                .serialize(TOPIC, request);
+
+        for (WireFormat format : WireFormat.values()) {
+            Serde<UserFindRequest> serde = registry(format).getSerde(UserFindRequest.class);
+            Assertions.assertEquals(request, serde.deserializer().deserialize(TOPIC, json));
+            Assertions.assertEquals(request, serde.deserializer().deserialize(TOPIC, protobuf));
+        }
+    }
+
+    @Test
+    void testInvalidRecordFails() {
+        Serde<UserEvent> serde = registry(WireFormat.PROTOBUF).getSerde(UserEvent.class);
+
+        Assertions.assertThrows(SerializationException.class,
+                () -> serde.deserializer().deserialize(TOPIC, "not a record".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testOtherTypesAreLeftToTheDefaultRegistries() {
+        Assertions.assertNull(registry(WireFormat.PROTOBUF).getSerde(String.class));
+    }
+
+    private UserEventSerdeRegistry registry(WireFormat format) {
+        WireFormatConfiguration configuration = new WireFormatConfiguration();
+        configuration.setWireFormat(format);
+        return new UserEventSerdeRegistry(configuration, jsonMapper);
+    }
+}
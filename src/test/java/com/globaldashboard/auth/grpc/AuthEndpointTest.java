@@ -1,18 +1,33 @@
 package com.globaldashboard.auth.grpc;
 
 import com.globaldashboard.auth.client.KafkaUserClient;
+import com.globaldashboard.auth.client.PersistenceUnavailableException;
 import com.globaldashboard.auth.client.UserReplyConsumer;
 import com.globaldashboard.auth.event.user.UserEvent;
 import com.globaldashboard.auth.event.user.UserEvent.EventType;
 import com.globaldashboard.auth.proto.LoginRequest;
 import com.globaldashboard.auth.proto.LoginResponse;
+import com.globaldashboard.auth.proto.LogoutRequest;
+import com.globaldashboard.auth.proto.LogoutResponse;
+import com.globaldashboard.auth.proto.RevokeAllSessionsRequest;
+import com.globaldashboard.auth.proto.RevokeAllSessionsResponse;
+import com.globaldashboard.auth.proto.VerifyBatchRequest;
+import com.globaldashboard.auth.proto.VerifyBatchResponse;
 import com.globaldashboard.auth.proto.VerifyRequest;
 import com.globaldashboard.auth.proto.VerifyResponse;
+import com.globaldashboard.auth.service.DefaultPasswordHasher;
+import com.globaldashboard.auth.service.PasswordHasherConfiguration;
+import com.globaldashboard.auth.service.SessionConfiguration;
 import com.globaldashboard.auth.service.SessionService;
+import com.globaldashboard.auth.service.StatelessSessionConfiguration;
+import com.globaldashboard.auth.service.VerifiedTokenCache;
+import com.globaldashboard.auth.service.VerifiedTokenCacheConfiguration;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micronaut.security.authentication.Authentication;
 import io.micronaut.security.token.jwt.generator.JwtTokenGenerator;
 import io.micronaut.security.token.jwt.validator.JwtTokenValidator;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,18 +36,26 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class AuthEndpointTest {
 
+    private static final long TIMEOUT_MS = 2000;
+
     @Mock
     private KafkaUserClient userClient;
 
@@ -51,11 +74,23 @@ class AuthEndpointTest {
     @Mock
     private StreamObserver<VerifyResponse> verifyResponseObserver;
 
+    private DefaultPasswordHasher passwordHasher;
+
+    private VerifiedTokenCache tokenCache;
+
     private AuthEndpoint authEndpoint;
 
     @BeforeEach
     void setUp() {
-        authEndpoint = new AuthEndpoint(userClient, sessionService, tokenGenerator, tokenValidator);
+        passwordHasher = new DefaultPasswordHasher(new PasswordHasherConfiguration(), new SimpleMeterRegistry());
+        tokenCache = new VerifiedTokenCache(new VerifiedTokenCacheConfiguration(), new SimpleMeterRegistry());
+        authEndpoint = new AuthEndpoint(userClient, sessionService, passwordHasher, tokenGenerator, tokenValidator,
+                tokenCache, new SessionConfiguration(), new StatelessSessionConfiguration());
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.close();
     }
 
     @Test
@@ -63,7 +98,7 @@ class AuthEndpointTest {
         String username = "validuser";
         String password = "password";
         String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
-        UserEvent userEvent = new UserEvent(1L, username, "email@test.com", hashedPassword, EventType.CREATED, null);
+        UserEvent userEvent = new UserEvent(1L, 1L, username, "email@test.com", hashedPassword, EventType.CREATED, null);
 
         LoginRequest request = LoginRequest.newBuilder()
                 .setUsername(username)
@@ -72,14 +107,71 @@ class AuthEndpointTest {
 
         CompletableFuture<UserEvent> future = CompletableFuture.completedFuture(userEvent);
         when(userClient.findUser(username)).thenReturn(future);
-        when(sessionService.createSession(eq(username), anyString())).thenReturn("session-id");
+        when(sessionService.createSessionAsync(eq(username), anyString()))
+                .thenReturn(CompletableFuture.completedFuture("session-id"));
         when(tokenGenerator.generateToken(anyMap())).thenReturn(Optional.of("access-token"));
 
         authEndpoint.login(request, loginResponseObserver);
 
-        verify(loginResponseObserver).onNext(argThat(
+        verify(loginResponseObserver, timeout(TIMEOUT_MS)).onNext(argThat(
                 response -> response.getAccessToken().equals("access-token") && response.getExpiresIn() == 1800));
-        verify(loginResponseObserver).onCompleted();
+        verify(loginResponseObserver, timeout(TIMEOUT_MS)).onCompleted();
+        // Sessions slide in Redis, the token itself must not expire
+        verify(tokenGenerator).generateToken(argThat(claims -> "session-id".equals(claims.get("jti"))
+                && "1".equals(claims.get("uid")) && !claims.containsKey("exp")));
+    }
+
+    @Test
+    void login_ShouldIssueShortLivedToken_InStatelessMode() {
+        StatelessSessionConfiguration statelessConfiguration = new StatelessSessionConfiguration();
+        statelessConfiguration.setEnabled(true);
+        statelessConfiguration.setTokenLifetime(Duration.ofMinutes(10));
+        AuthEndpoint endpoint = new AuthEndpoint(userClient, sessionService, passwordHasher, tokenGenerator,
+                tokenValidator, tokenCache, new SessionConfiguration(), statelessConfiguration);
+        String username = "validuser";
+        UserEvent userEvent = new UserEvent(1L, 1L, username, "email", BCrypt.hashpw("password", BCrypt.gensalt()),
+                EventType.FOUND, null);
+        when(userClient.findUser(username)).thenReturn(CompletableFuture.completedFuture(userEvent));
+        when(sessionService.createSessionAsync(eq(username), anyString()))
+                .thenReturn(CompletableFuture.completedFuture("session-id"));
+        when(tokenGenerator.generateToken(anyMap())).thenReturn(Optional.of("access-token"));
+        long before = Instant.now().getEpochSecond();
+
+        endpoint.login(LoginRequest.newBuilder().setUsername(username).setPassword("password").build(),
+                loginResponseObserver);
+
+        verify(loginResponseObserver, timeout(TIMEOUT_MS)).onNext(argThat(response -> response.getExpiresIn() == 600));
+        verify(tokenGenerator).generateToken(argThat(claims -> {
+            long issuedAt = (Long) claims.get("iat");
+            return issuedAt >= before && (Long) claims.get("exp") == issuedAt + 600;
+        }));
+    }
+
+    @Test
+    void login_ShouldRehashInTheBackground_WhenStoredCostIsOutdated() {
+        PasswordHasherConfiguration configuration = new PasswordHasherConfiguration();
+        configuration.setCost(5);
+        DefaultPasswordHasher hasher = new DefaultPasswordHasher(configuration, new SimpleMeterRegistry());
+        AuthEndpoint endpoint = new AuthEndpoint(userClient, sessionService, hasher, tokenGenerator, tokenValidator,
+                tokenCache, new SessionConfiguration(), new StatelessSessionConfiguration());
+        String username = "olduser";
+        UserEvent userEvent = new UserEvent(1L, 1L, username, "email", BCrypt.hashpw("password", BCrypt.gensalt(4)),
+                EventType.FOUND, null);
+        when(userClient.findUser(username)).thenReturn(CompletableFuture.completedFuture(userEvent));
+        when(sessionService.createSessionAsync(eq(username), anyString()))
+                .thenReturn(CompletableFuture.completedFuture("session-id"));
+        when(tokenGenerator.generateToken(anyMap())).thenReturn(Optional.of("access-token"));
+
+        try {
+            endpoint.login(LoginRequest.newBuilder().setUsername(username).setPassword("password").build(),
+                    loginResponseObserver);
+
+            verify(loginResponseObserver, timeout(TIMEOUT_MS)).onCompleted();
+            verify(userClient, timeout(TIMEOUT_MS)).updatePassword(eq(1L), eq(username), eq(userEvent.password()),
+                    argThat(hash -> hash.startsWith("$2a$05$") && BCrypt.checkpw("password", hash)));
+        } finally {
+            hasher.close();
+        }
     }
 
     @Test
@@ -87,20 +179,20 @@ class AuthEndpointTest {
         String username = "unknown";
         LoginRequest request = LoginRequest.newBuilder().setUsername(username).setPassword("pwd").build();
 
-        UserEvent notFound = new UserEvent(null, null, null, null, EventType.NOT_FOUND, null);
+        UserEvent notFound = new UserEvent(1L, null, null, null, null, EventType.NOT_FOUND, null);
         CompletableFuture<UserEvent> future = CompletableFuture.completedFuture(notFound);
         when(userClient.findUser(username)).thenReturn(future);
 
         authEndpoint.login(request, loginResponseObserver);
 
-        verify(loginResponseObserver).onError(argThat(t -> t.getMessage().contains("User not found")));
+        verify(loginResponseObserver, timeout(TIMEOUT_MS)).onError(argThat(t -> t.getMessage().contains("User not found")));
     }
 
     @Test
     void login_ShouldReturnError_WhenPasswordInvalid() throws Exception {
         String username = "validuser";
         String hashedPassword = BCrypt.hashpw("correct", BCrypt.gensalt());
-        UserEvent userEvent = new UserEvent(1L, username, "email", hashedPassword, EventType.CREATED, null);
+        UserEvent userEvent = new UserEvent(1L, 1L, username, "email", hashedPassword, EventType.CREATED, null);
 
         LoginRequest request = LoginRequest.newBuilder().setUsername(username).setPassword("wrong").build();
 
@@ -109,7 +201,7 @@ class AuthEndpointTest {
 
         authEndpoint.login(request, loginResponseObserver);
 
-        verify(loginResponseObserver).onError(argThat(t -> t.getMessage().contains("Bad password")));
+        verify(loginResponseObserver, timeout(TIMEOUT_MS)).onError(argThat(t -> t.getMessage().contains("Bad password")));
     }
 
     @Test
@@ -119,17 +211,134 @@ class AuthEndpointTest {
         String username = "testuser";
 
         Authentication auth = Authentication.build(username, Collections.singletonList("USER"),
-                Map.of("jti", sessionId));
+                Map.of("jti", sessionId, "uid", "42"));
+        when(tokenValidator.validateToken(token, null)).thenReturn(Mono.just(auth));
+        when(sessionService.validateSessionAsync(sessionId)).thenReturn(CompletableFuture.completedFuture(true));
+
+        VerifyRequest request = VerifyRequest.newBuilder().setToken(token).build();
+
+        authEndpoint.verify(request, verifyResponseObserver);
+
+        verify(verifyResponseObserver).onNext(argThat(response -> response.getValid()
+                && response.getUsername().equals(username) && response.getUserId().equals("42")));
+        verify(verifyResponseObserver).onCompleted();
+    }
+
+    @Test
+    void verify_ShouldCheckSignatureOnce_ButSessionEveryTime() {
+        String token = "repeated-token";
+        Date expiration = Date.from(Instant.now().plusSeconds(600));
+        Authentication auth = Authentication.build("testuser", Collections.singletonList("USER"),
+                Map.of("jti", "s1", "exp", expiration));
         when(tokenValidator.validateToken(token, null)).thenReturn(Mono.just(auth));
-        when(sessionService.validateSession(sessionId)).thenReturn(true);
+        when(sessionService.validateSessionAsync("s1")).thenReturn(CompletableFuture.completedFuture(true));
 
         VerifyRequest request = VerifyRequest.newBuilder().setToken(token).build();
+        authEndpoint.verify(request, verifyResponseObserver);
+        authEndpoint.verify(request, verifyResponseObserver);
+
+        verify(tokenValidator, times(1)).validateToken(token, null);
+        verify(sessionService, times(2)).validateSessionAsync("s1");
+        verify(verifyResponseObserver, times(2)).onNext(argThat(response -> response.getValid()
+                && response.getUsername().equals("testuser") && response.getRolesList().equals(List.of("USER"))));
+    }
 
+    @Test
+    void verify_ShouldNotCacheExpiredTokens() {
+        String token = "expired-token";
+        Authentication auth = Authentication.build("testuser", Collections.singletonList("USER"),
+                Map.of("jti", "s1", "exp", Date.from(Instant.now().minusSeconds(1))));
+        when(tokenValidator.validateToken(token, null)).thenReturn(Mono.just(auth));
+        when(sessionService.validateSessionAsync("s1")).thenReturn(CompletableFuture.completedFuture(true));
+
+        VerifyRequest request = VerifyRequest.newBuilder().setToken(token).build();
+        authEndpoint.verify(request, verifyResponseObserver);
         authEndpoint.verify(request, verifyResponseObserver);
 
-        verify(verifyResponseObserver)
-                .onNext(argThat(response -> response.getValid() && response.getUsername().equals(username)));
+        verify(tokenValidator, times(2)).validateToken(token, null);
+    }
+
+    @Test
+    void verify_ShouldReturnInvalid_WhenSessionIsRevoked() {
+        String token = "valid-token";
+        Authentication auth = Authentication.build("testuser", Collections.singletonList("USER"),
+                Map.of("jti", "revoked"));
+        when(tokenValidator.validateToken(token, null)).thenReturn(Mono.just(auth));
+        when(sessionService.validateSessionAsync("revoked")).thenReturn(CompletableFuture.completedFuture(false));
+
+        authEndpoint.verify(VerifyRequest.newBuilder().setToken(token).build(), verifyResponseObserver);
+
+        verify(verifyResponseObserver).onNext(argThat(response -> !response.getValid()));
+        verify(verifyResponseObserver).onCompleted();
+    }
+
+    @Test
+    void verify_ShouldReturnInvalid_WhenTokenIsRejected() {
+        String token = "forged-token";
+        when(tokenValidator.validateToken(token, null)).thenReturn(Mono.empty());
+
+        authEndpoint.verify(VerifyRequest.newBuilder().setToken(token).build(), verifyResponseObserver);
+
+        verify(verifyResponseObserver).onNext(argThat(response -> !response.getValid()));
         verify(verifyResponseObserver).onCompleted();
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void verify_ShouldReportAnError_WhenTheSessionCheckThrows() {
+        String token = "valid-token";
+        Authentication auth = Authentication.build("testuser", Collections.singletonList("USER"),
+                Map.of("jti", "s1"));
+        when(tokenValidator.validateToken(token, null)).thenReturn(Mono.just(auth));
+        when(sessionService.validateSessionAsync("s1")).thenThrow(new RejectedExecutionException("Redis saturated"));
+
+        authEndpoint.verify(VerifyRequest.newBuilder().setToken(token).build(), verifyResponseObserver);
+
+        verify(verifyResponseObserver).onError(argThat(t -> io.grpc.Status.fromThrowable(t).getCode()
+                == io.grpc.Status.Code.RESOURCE_EXHAUSTED));
+        verify(verifyResponseObserver, never()).onNext(any());
+    }
+
+    @Mock
+    private StreamObserver<VerifyBatchResponse> verifyBatchResponseObserver;
+
+    @Test
+    void verifyBatch_ShouldReturnResultsInRequestOrder_WithOneSessionLookup() {
+        Authentication first = Authentication.build("first", Collections.singletonList("USER"), Map.of("jti", "s1"));
+        Authentication third = Authentication.build("third", Collections.singletonList("USER"), Map.of("jti", "s3"));
+        when(tokenValidator.validateToken("t1", null)).thenReturn(Mono.just(first));
+        when(tokenValidator.validateToken("t2", null)).thenReturn(Mono.empty());
+        when(tokenValidator.validateToken("t3", null)).thenReturn(Mono.just(third));
+        when(sessionService.validateSessionsAsync(List.of("s1", "s3")))
+                .thenReturn(CompletableFuture.completedFuture(List.of(true, false)));
+
+        authEndpoint.verifyBatch(VerifyBatchRequest.newBuilder().addAllTokens(List.of("t1", "t2", "t3")).build(),
+                verifyBatchResponseObserver);
+
+        verify(verifyBatchResponseObserver, timeout(TIMEOUT_MS)).onNext(argThat(response ->
+                response.getResultsCount() == 3
+                        && response.getResults(0).getValid()
+                        && response.getResults(0).getUsername().equals("first")
+                        && !response.getResults(1).getValid()
+                        && !response.getResults(2).getValid()));
+        verify(verifyBatchResponseObserver, timeout(TIMEOUT_MS)).onCompleted();
+        verify(sessionService, never()).validateSessionAsync(anyString());
+    }
+
+    @Test
+    void verifyBatch_ShouldCheckSignaturesOffTheCallingThread() {
+        List<Thread> validatingThreads = new CopyOnWriteArrayList<>();
+        when(tokenValidator.validateToken(anyString(), isNull())).thenAnswer(invocation -> {
+            validatingThreads.add(Thread.currentThread());
+            return Mono.empty();
+        });
+
+        authEndpoint.verifyBatch(VerifyBatchRequest.newBuilder().addAllTokens(List.of("t1", "t2")).build(),
+                verifyBatchResponseObserver);
+
+        verify(verifyBatchResponseObserver, timeout(TIMEOUT_MS)).onCompleted();
+        assertEquals(2, validatingThreads.size());
+        assertFalse(validatingThreads.contains(Thread.currentThread()));
     }
 
     @Mock
@@ -148,16 +357,16 @@ class AuthEndpointTest {
                 .setPassword(password)
                 .build();
 
-        UserEvent createdEvent = new UserEvent(100L, username, email, "hash", EventType.CREATED, null);
+        UserEvent createdEvent = new UserEvent(1L, 100L, username, email, "hash", EventType.CREATED, null);
         CompletableFuture<UserEvent> future = CompletableFuture.completedFuture(createdEvent);
 
         when(userClient.createUser(eq(username), eq(email), anyString())).thenReturn(future);
 
         authEndpoint.register(request, registerResponseObserver);
 
-        verify(registerResponseObserver).onNext(
+        verify(registerResponseObserver, timeout(TIMEOUT_MS)).onNext(
                 argThat(response -> response.getStatus().equals("CREATED") && response.getUserId().equals("100")));
-        verify(registerResponseObserver).onCompleted();
+        verify(registerResponseObserver, timeout(TIMEOUT_MS)).onCompleted();
     }
 
     @Test
@@ -170,14 +379,120 @@ class AuthEndpointTest {
                 .setPassword("pwd")
                 .build();
 
-        UserEvent errorEvent = new UserEvent(null, username, null, null, EventType.ERROR, "Email exists");
+        UserEvent errorEvent = new UserEvent(1L, null, username, null, null, EventType.ERROR, "Email exists");
         CompletableFuture<UserEvent> future = CompletableFuture.completedFuture(errorEvent);
 
         when(userClient.createUser(eq(username), anyString(), anyString())).thenReturn(future);
 
         authEndpoint.register(request, registerResponseObserver);
 
-        verify(registerResponseObserver).onError(argThat(t -> t instanceof io.grpc.StatusRuntimeException &&
+        verify(registerResponseObserver, timeout(TIMEOUT_MS)).onError(argThat(t -> t instanceof io.grpc.StatusRuntimeException &&
                 ((io.grpc.StatusRuntimeException) t).getStatus().getCode() == io.grpc.Status.Code.ALREADY_EXISTS));
     }
+
+    @Test
+    void login_ShouldReturnDeadlineExceeded_WhenPersistenceDoesNotReply() {
+        String username = "slowuser";
+        LoginRequest request = LoginRequest.newBuilder().setUsername(username).setPassword("pwd").build();
+
+        CompletableFuture<UserEvent> future = new CompletableFuture<>();
+        future.completeExceptionally(new java.util.concurrent.TimeoutException());
+        when(userClient.findUser(username)).thenReturn(future);
+
+        authEndpoint.login(request, loginResponseObserver);
+
+        verify(loginResponseObserver, timeout(TIMEOUT_MS)).onError(argThat(t -> t instanceof io.grpc.StatusRuntimeException &&
+                ((io.grpc.StatusRuntimeException) t).getStatus().getCode() == io.grpc.Status.Code.DEADLINE_EXCEEDED));
+        verify(loginResponseObserver, never()).onNext(any());
+    }
+
+    @Test
+    void login_ShouldReturnUnavailable_WhenRequestCannotBeSent() {
+        String username = "unsent";
+        LoginRequest request = LoginRequest.newBuilder().setUsername(username).setPassword("pwd").build();
+
+        when(userClient.findUser(username)).thenReturn(CompletableFuture.failedFuture(
+                new PersistenceUnavailableException("Could not send request", new RuntimeException("broker down"))));
+
+        authEndpoint.login(request, loginResponseObserver);
+
+        verify(loginResponseObserver, timeout(TIMEOUT_MS)).onError(argThat(t -> t instanceof io.grpc.StatusRuntimeException
+                && ((io.grpc.StatusRuntimeException) t).getStatus().getCode() == io.grpc.Status.Code.UNAVAILABLE));
+        verify(loginResponseObserver, never()).onNext(any());
+    }
+
+    @Test
+    void logout_ShouldInvalidateTheTokensSession() {
+        @SuppressWarnings("unchecked")
+        StreamObserver<LogoutResponse> observer = mock(StreamObserver.class);
+        Authentication auth = Authentication.build("user", Collections.singletonList("USER"), Map.of("jti", "s1"));
+        when(tokenValidator.validateToken("token", null)).thenReturn(Mono.just(auth));
+        when(sessionService.validateSessionAsync("s1")).thenReturn(CompletableFuture.completedFuture(true));
+        when(sessionService.invalidateSessionAsync("s1")).thenReturn(CompletableFuture.completedFuture(null));
+
+        authEndpoint.logout(LogoutRequest.newBuilder().setToken("token").build(), observer);
+
+        verify(observer).onNext(argThat(LogoutResponse::getSuccess));
+        verify(observer).onCompleted();
+    }
+
+    @Test
+    void logout_ShouldBeUnauthenticated_WhenTokenIsInvalid() {
+        @SuppressWarnings("unchecked")
+        StreamObserver<LogoutResponse> observer = mock(StreamObserver.class);
+        when(tokenValidator.validateToken("forged", null)).thenReturn(Mono.empty());
+
+        authEndpoint.logout(LogoutRequest.newBuilder().setToken("forged").build(), observer);
+
+        verify(observer).onError(argThat(t -> io.grpc.Status.fromThrowable(t).getCode()
+                == io.grpc.Status.Code.UNAUTHENTICATED));
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void logout_ShouldBeUnauthenticated_WhenSessionWasRevoked() {
+        @SuppressWarnings("unchecked")
+        StreamObserver<LogoutResponse> observer = mock(StreamObserver.class);
+        Authentication auth = Authentication.build("user", Collections.singletonList("USER"), Map.of("jti", "s1"));
+        when(tokenValidator.validateToken("token", null)).thenReturn(Mono.just(auth));
+        when(sessionService.validateSessionAsync("s1")).thenReturn(CompletableFuture.completedFuture(false));
+
+        authEndpoint.logout(LogoutRequest.newBuilder().setToken("token").build(), observer);
+
+        verify(observer).onError(argThat(t -> io.grpc.Status.fromThrowable(t).getCode()
+                == io.grpc.Status.Code.UNAUTHENTICATED));
+        verify(sessionService, never()).invalidateSessionAsync(anyString());
+    }
+
+    @Test
+    void revokeAllSessions_ShouldBeUnauthenticated_WhenSessionWasRevoked() {
+        @SuppressWarnings("unchecked")
+        StreamObserver<RevokeAllSessionsResponse> observer = mock(StreamObserver.class);
+        Authentication auth = Authentication.build("user", Collections.singletonList("USER"),
+                Map.of("jti", "s1", "uid", "42"));
+        when(tokenValidator.validateToken("token", null)).thenReturn(Mono.just(auth));
+        when(sessionService.validateSessionAsync("s1")).thenReturn(CompletableFuture.completedFuture(false));
+
+        authEndpoint.revokeAllSessions(RevokeAllSessionsRequest.newBuilder().setToken("token").build(), observer);
+
+        verify(observer).onError(argThat(t -> io.grpc.Status.fromThrowable(t).getCode()
+                == io.grpc.Status.Code.UNAUTHENTICATED));
+        verify(sessionService, never()).invalidateUserSessionsAsync(anyString());
+    }
+
+    @Test
+    void revokeAllSessions_ShouldInvalidateEverySessionOfTheTokensUser() {
+        @SuppressWarnings("unchecked")
+        StreamObserver<RevokeAllSessionsResponse> observer = mock(StreamObserver.class);
+        Authentication auth = Authentication.build("user", Collections.singletonList("USER"),
+                Map.of("jti", "s1", "uid", "42"));
+        when(tokenValidator.validateToken("token", null)).thenReturn(Mono.just(auth));
+        when(sessionService.validateSessionAsync("s1")).thenReturn(CompletableFuture.completedFuture(true));
+        when(sessionService.invalidateUserSessionsAsync("42")).thenReturn(CompletableFuture.completedFuture(3));
+
+        authEndpoint.revokeAllSessions(RevokeAllSessionsRequest.newBuilder().setToken("token").build(), observer);
+
+        verify(observer).onNext(argThat(response -> response.getRevokedCount() == 3));
+        verify(observer).onCompleted();
+    }
 }
@@ -0,0 +1,76 @@
+package com.globaldashboard.auth.grpc;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GrpcMetricsInterceptorTest {
+
+    @Mock
+    private ServerCall<String, String> call;
+
+    @Mock
+    private ServerCallHandler<String, String> handler;
+
+    @Mock
+    private ServerCall.Listener<String> listener;
+
+    @Captor
+    private ArgumentCaptor<ServerCall<String, String>> timedCall;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GrpcMetricsInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new GrpcMetricsInterceptor(meterRegistry);
+        MethodDescriptor<String, String> method = MethodDescriptor.<String, String>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName("com.globaldashboard.auth.proto.AuthService/Login")
+                .setRequestMarshaller(mock(MethodDescriptor.Marshaller.class))
+                .setResponseMarshaller(mock(MethodDescriptor.Marshaller.class))
+                .build();
+        when(call.getMethodDescriptor()).thenReturn(method);
+    }
+
+    @Test
+    void shouldTimeCallsByMethodAndStatus() {
+        when(handler.startCall(timedCall.capture(), any())).thenReturn(listener);
+
+        interceptor.interceptCall(call, new Metadata(), handler);
+        timedCall.getValue().close(Status.UNAUTHENTICATED, new Metadata());
+
+        assertEquals(1, meterRegistry.get("auth.grpc.server.calls")
+                .tags("method", "Login", "status", "UNAUTHENTICATED").timer().count());
+        verify(call).close(eq(Status.UNAUTHENTICATED), any());
+    }
+
+    @Test
+    void shouldRecordCancelledCallsOnce() {
+        when(handler.startCall(timedCall.capture(), any())).thenReturn(listener);
+
+        ServerCall.Listener<String> timedListener = interceptor.interceptCall(call, new Metadata(), handler);
+        timedListener.onCancel();
+        timedCall.getValue().close(Status.CANCELLED, new Metadata());
+
+        assertEquals(1, meterRegistry.get("auth.grpc.server.calls")
+                .tags("method", "Login", "status", "CANCELLED").timer().count());
+        verify(listener).onCancel();
+    }
+}
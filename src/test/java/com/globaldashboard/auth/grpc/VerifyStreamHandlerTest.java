@@ -0,0 +1,83 @@
+package com.globaldashboard.auth.grpc;
+
+import com.globaldashboard.auth.proto.VerifyResponse;
+import com.globaldashboard.auth.proto.VerifyStreamRequest;
+import com.globaldashboard.auth.proto.VerifyStreamResponse;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VerifyStreamHandlerTest {
+
+    @Mock
+    private ServerCallStreamObserver<VerifyStreamResponse> responses;
+
+    @Test
+    void shouldMatchResponsesByRequestIdAndRefillWindow() {
+        when(responses.isReady()).thenReturn(true);
+        Sinks.One<VerifyResponse> slow = Sinks.one();
+        VerifyStreamHandler handler = new VerifyStreamHandler(responses,
+                token -> token.equals("slow") ? slow.asMono() : Mono.just(valid(token)), 8);
+
+        handler.onNext(request("r1", "slow"));
+        handler.onNext(request("r2", "fast"));
+        slow.tryEmitValue(valid("slow"));
+
+        InOrder inOrder = inOrder(responses);
+        inOrder.verify(responses).disableAutoRequest();
+        inOrder.verify(responses).request(8);
+        inOrder.verify(responses).onNext(argThat(r -> r.getRequestId().equals("r2")
+                && r.getResult().getUsername().equals("fast")));
+        inOrder.verify(responses).onNext(argThat(r -> r.getRequestId().equals("r1")
+                && r.getResult().getUsername().equals("slow")));
+        verify(responses, times(2)).request(1);
+        verify(responses, never()).onCompleted();
+    }
+
+    @Test
+    void shouldDeferRequests_WhileClientIsNotReady() {
+        when(responses.isReady()).thenReturn(false);
+        VerifyStreamHandler handler = new VerifyStreamHandler(responses, token -> Mono.just(valid(token)), 4);
+        ArgumentCaptor<Runnable> onReady = ArgumentCaptor.forClass(Runnable.class);
+        verify(responses).setOnReadyHandler(onReady.capture());
+
+        handler.onNext(request("r1", "a"));
+        handler.onNext(request("r2", "b"));
+        verify(responses, never()).request(1);
+
+        onReady.getValue().run();
+        verify(responses).request(2);
+    }
+
+    @Test
+    void shouldCompleteOnlyAfterPendingVerificationsAnswered() {
+        Sinks.One<VerifyResponse> pending = Sinks.one();
+        VerifyStreamHandler handler = new VerifyStreamHandler(responses, token -> pending.asMono(), 4);
+
+        handler.onNext(request("r1", "a"));
+        handler.onCompleted();
+        verify(responses, never()).onCompleted();
+
+        pending.tryEmitValue(valid("a"));
+        verify(responses).onNext(any());
+        verify(responses).onCompleted();
+    }
+
+    private static VerifyStreamRequest request(String id, String token) {
+        return VerifyStreamRequest.newBuilder().setRequestId(id).setToken(token).build();
+    }
+
+    private static VerifyResponse valid(String username) {
+        return VerifyResponse.newBuilder().setValid(true).setUsername(username).build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.globaldashboard.auth.grpc;
+
+import io.grpc.ServerBuilder;
+import io.micronaut.context.event.BeanCreatedEvent;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VirtualThreadServerExecutorTest {
+
+    @Mock
+    private ServerBuilder<?> builder;
+
+    @Mock
+    private BeanCreatedEvent<ServerBuilder<?>> event;
+
+    @Captor
+    private ArgumentCaptor<Executor> executor;
+
+    private final VirtualThreadServerExecutor configurer = new VirtualThreadServerExecutor();
+
+    @AfterEach
+    void tearDown() {
+        configurer.close();
+    }
+
+    @Test
+    void callsRunOnVirtualThreads() {
+        doReturn(builder).when(event).getBean();
+
+        configurer.onCreated(event);
+
+        verify(builder).executor(executor.capture());
+        CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+        executor.getValue().execute(() -> virtual.complete(Thread.currentThread().isVirtual()));
+        assertTrue(virtual.orTimeout(5, TimeUnit.SECONDS).join());
+    }
+}
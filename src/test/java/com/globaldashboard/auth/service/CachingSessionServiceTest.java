@@ -0,0 +1,84 @@
+package com.globaldashboard.auth.service;
+
+import io.lettuce.core.pubsub.RedisPubSubListener;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.lettuce.core.pubsub.api.async.RedisPubSubAsyncCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingSessionServiceTest {
+
+    @Mock
+    private DefaultSessionService delegate;
+
+    @Mock
+    private SessionRedis redis;
+
+    @Mock
+    private StatefulRedisPubSubConnection<String, String> pubSubConnection;
+
+    @Mock
+    private RedisPubSubAsyncCommands<String, String> pubSubCommands;
+
+    private CachingSessionService sessionService;
+
+    private RedisPubSubListener<String, String> listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redis.connectPubSub()).thenReturn(pubSubConnection);
+        when(pubSubConnection.async()).thenReturn(pubSubCommands);
+        SessionCacheConfiguration configuration = new SessionCacheConfiguration();
+        configuration.setEnabled(true);
+        sessionService = new CachingSessionService(delegate, redis, configuration,
+                new SimpleMeterRegistry());
+        sessionService.subscribe();
+
+        ArgumentCaptor<RedisPubSubListener<String, String>> captor = ArgumentCaptor.forClass(RedisPubSubListener.class);
+        verify(pubSubConnection).addListener(captor.capture());
+        listener = captor.getValue();
+        verify(pubSubCommands).subscribe(DefaultSessionService.REVOCATION_CHANNEL);
+    }
+
+    @Test
+    void validateSession_ShouldHitRedisOnce_WhileCached() {
+        when(delegate.validateSessionAsync("s1")).thenReturn(completedFuture(true));
+
+        assertTrue(sessionService.validateSession("s1"));
+        assertTrue(sessionService.validateSession("s1"));
+
+        verify(delegate, times(1)).validateSessionAsync("s1");
+    }
+
+    @Test
+    void validateSession_ShouldNotCacheInvalidSessions() {
+        when(delegate.validateSessionAsync("s1")).thenReturn(completedFuture(false));
+
+        assertFalse(sessionService.validateSession("s1"));
+        assertFalse(sessionService.validateSession("s1"));
+
+        verify(delegate, times(2)).validateSessionAsync("s1");
+    }
+
+    @Test
+    void validateSession_ShouldGoBackToRedis_AfterRevocationMessage() {
+        when(delegate.validateSessionAsync("s1")).thenReturn(completedFuture(true), completedFuture(false));
+        assertTrue(sessionService.validateSession("s1"));
+
+        listener.message(DefaultSessionService.REVOCATION_CHANNEL, "s1");
+
+        assertFalse(sessionService.validateSession("s1"));
+        verify(delegate, times(2)).validateSessionAsync("s1");
+    }
+}
@@ -0,0 +1,87 @@
+package com.globaldashboard.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultPasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DefaultPasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        hasher.close();
+    }
+
+    @Test
+    void hash_ShouldProduceVerifiableBcryptHash() throws Exception {
+        hasher = new DefaultPasswordHasher(new PasswordHasherConfiguration(), meterRegistry);
+
+        String hash = hasher.hash("secret").get(5, TimeUnit.SECONDS);
+
+        assertTrue(BCrypt.checkpw("secret", hash));
+        assertTrue(hasher.matches("secret", hash).get(5, TimeUnit.SECONDS));
+        assertFalse(hasher.matches("wrong", hash).get(5, TimeUnit.SECONDS));
+        assertEquals(2, meterRegistry.get("auth.hashing.duration").tag("operation", "check").timer().count());
+    }
+
+    @Test
+    void hash_ShouldRejectImmediately_WhenQueueIsFull() throws Exception {
+        PasswordHasherConfiguration configuration = new PasswordHasherConfiguration();
+        configuration.setThreads(1);
+        configuration.setQueueCapacity(1);
+        hasher = new DefaultPasswordHasher(configuration, meterRegistry);
+
+        CompletableFuture<String> running = hasher.hash("first");
+        CompletableFuture<String> queued = hasher.hash("second");
+        CompletableFuture<String> shed = hasher.hash("third");
+
+        assertTrue(shed.isCompletedExceptionally());
+        ExecutionException error = assertThrows(ExecutionException.class, shed::get);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(1.0, meterRegistry.get("auth.hashing.rejected").counter().count());
+
+        assertNotNull(running.get(5, TimeUnit.SECONDS));
+        assertNotNull(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void hash_ShouldUseConfiguredCost_AndFlagWeakerHashesForRehash() throws Exception {
+        PasswordHasherConfiguration configuration = new PasswordHasherConfiguration();
+        configuration.setCost(6);
+        hasher = new DefaultPasswordHasher(configuration, meterRegistry);
+
+        String hash = hasher.hash("secret").get(5, TimeUnit.SECONDS);
+
+        assertEquals(6, DefaultPasswordHasher.costOf(hash));
+        assertFalse(hasher.needsRehash(hash));
+        assertTrue(hasher.needsRehash(BCrypt.hashpw("secret", BCrypt.gensalt(5))));
+        // Stronger hashes are kept
+        assertFalse(hasher.needsRehash("$2a$12$" + "x".repeat(53)));
+        assertFalse(hasher.needsRehash("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    void calibrate_ShouldStayWithinConfiguredBounds() {
+        PasswordHasherConfiguration configuration = new PasswordHasherConfiguration();
+        configuration.setTargetHashTime(Duration.ofNanos(1));
+        configuration.setMinCost(5);
+        assertEquals(5, DefaultPasswordHasher.calibrate(configuration));
+
+        configuration.setTargetHashTime(Duration.ofHours(1));
+        configuration.setMaxCost(9);
+        assertEquals(9, DefaultPasswordHasher.calibrate(configuration));
+        hasher = new DefaultPasswordHasher(configuration, meterRegistry);
+        assertEquals(9, hasher.cost());
+    }
+}
@@ -1,10 +1,23 @@
 package com.globaldashboard.auth.service;
 
-import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.Limit;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.ZAddArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.protocol.AsyncCommand;
+import io.lettuce.core.protocol.Command;
+import io.lettuce.core.protocol.CommandType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -16,61 +29,250 @@ import static org.mockito.Mockito.*;
 class DefaultSessionServiceTest {
 
     @Mock
-    private StatefulRedisConnection<String, String> connection;
+    private SessionRedis redis;
 
     @Mock
-    private RedisCommands<String, String> commands;
+    private RedisClusterAsyncCommands<byte[], byte[]> commands;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     private DefaultSessionService sessionService;
 
     @BeforeEach
     void setUp() {
-        when(connection.sync()).thenReturn(commands);
-        sessionService = new DefaultSessionService(connection);
+        lenient().when(redis.commands(any(byte[].class))).thenReturn(commands);
+        lenient().when(redis.anyCommands()).thenReturn(commands);
+        lenient().when(redis.shardOf(any(byte[].class))).thenReturn("default");
+        lenient().when(redis.groupForMultiKey(anyList())).thenReturn(List.of(List.of(0, 1)));
+        sessionService = new DefaultSessionService(redis, new SessionConfiguration(), meterRegistry);
+    }
+
+    @Test
+    void createSession_ShouldStoreSessionAndIndexItInOneScript() {
+        when(commands.<String>evalsha(anyString(), eq(ScriptOutputType.STATUS), any(byte[][].class),
+                any(byte[].class), any(byte[].class), any(byte[].class))).thenReturn(completed("OK"));
+        when(commands.zrangebyscore(any(byte[].class), any(Range.class), any(Limit.class)))
+                .thenReturn(completed(List.of()));
+
+        String sessionId = sessionService.createSession("testuser", "123");
+
+        // 128 random bits, URL-safe base64 without padding
+        assertEquals(22, sessionId.length());
+        assertEquals(17, SessionKeys.key(sessionId).length);
+        verify(commands).evalsha(anyString(), eq(ScriptOutputType.STATUS),
+                argThat((byte[][] keys) -> Arrays.equals(keys[0], SessionKeys.key(sessionId))
+                        && Arrays.equals(keys[1], bytes("u:123"))),
+                aryEq(new SessionValue("123").encode()), aryEq(bytes("1800")), any(byte[].class));
+    }
+
+    @Test
+    void createSession_ShouldIndexBeforeStoring_WhenKeysAreOnDifferentShards() {
+        when(redis.groupForMultiKey(anyList())).thenReturn(List.of(List.of(0), List.of(1)));
+        when(commands.zadd(aryEq(bytes("u:123")), anyDouble(), any(byte[].class))).thenReturn(completed(1L));
+        when(commands.expire(aryEq(bytes("u:123")), eq(1800L))).thenReturn(completed(true));
+        when(commands.setex(any(byte[].class), eq(1800L), any(byte[].class))).thenReturn(completed("OK"));
+        when(commands.zrangebyscore(any(byte[].class), any(Range.class), any(Limit.class)))
+                .thenReturn(completed(List.of()));
+
+        sessionService.createSession("testuser", "123");
+
+        InOrder order = inOrder(commands);
+        order.verify(commands).zadd(aryEq(bytes("u:123")), anyDouble(), any(byte[].class));
+        order.verify(commands).expire(aryEq(bytes("u:123")), eq(1800L));
+        order.verify(commands).setex(any(byte[].class), eq(1800L), any(byte[].class));
+    }
+
+    @Test
+    void createSession_ShouldNotReuseIds() {
+        when(commands.<String>evalsha(anyString(), eq(ScriptOutputType.STATUS), any(byte[][].class),
+                any(byte[].class), any(byte[].class), any(byte[].class))).thenReturn(completed("OK"));
+        when(commands.zrangebyscore(any(byte[].class), any(Range.class), any(Limit.class)))
+                .thenReturn(completed(List.of()));
+
+        assertNotEquals(sessionService.createSession("a", "1"), sessionService.createSession("a", "1"));
     }
 
     @Test
-    void createSession_ShouldGenerateUuidAndStoreInRedis() {
-        String username = "testuser";
-        String userId = "user123";
+    void listSessions_ShouldPruneMembersWhoseSessionExpired() {
+        byte[] live = SessionKeys.key("live");
+        byte[] expired = SessionKeys.key("expired");
+        when(commands.zrange(aryEq(bytes("u:7")), eq(0L), eq(-1L))).thenReturn(completed(List.of(live, expired)));
+        when(commands.exists(aryEq(live))).thenReturn(completed(1L));
+        when(commands.exists(aryEq(expired))).thenReturn(completed(0L));
+        when(commands.zrem(aryEq(bytes("u:7")), aryEq(expired))).thenReturn(completed(1L));
+        when(commands.zadd(aryEq(bytes("u:7")), any(ZAddArgs.class), any(Object[].class))).thenReturn(completed(0L));
+        when(commands.expire(aryEq(bytes("u:7")), eq(1800L))).thenReturn(completed(true));
 
-        String sessionId = sessionService.createSession(username, userId);
+        List<String> sessions = sessionService.listSessionsAsync("7").toCompletableFuture().join();
 
-        assertNotNull(sessionId);
-        verify(commands).setex(eq("session:" + sessionId), eq(1800L), eq(userId));
+        assertEquals(List.of("live"), sessions);
+        verify(commands).zrem(aryEq(bytes("u:7")), aryEq(expired));
+        verify(commands).expire(aryEq(bytes("u:7")), eq(1800L));
+    }
+
+    @Test
+    void indexedSessions_ShouldNotPrune() {
+        when(commands.zrange(aryEq(bytes("u:7")), eq(0L), eq(-1L)))
+                .thenReturn(completed(List.of(SessionKeys.key("live"), SessionKeys.key("expired"))));
+
+        List<String> sessions = sessionService.indexedSessionsAsync("7").toCompletableFuture().join();
+
+        assertEquals(List.of("live", "expired"), sessions);
+        verify(commands, never()).exists(any(byte[].class));
+        verify(commands, never()).zrem(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    void invalidateUserSessions_ShouldDeleteIndexedSessionsWithoutScanning() {
+        byte[] first = SessionKeys.key("first");
+        byte[] second = SessionKeys.key("second");
+        when(commands.zrange(aryEq(bytes("u:7")), eq(0L), eq(-1L))).thenReturn(completed(List.of(first, second)));
+        when(commands.del(aryEq(first), aryEq(second))).thenReturn(completed(1L));
+        when(commands.zrem(aryEq(bytes("u:7")), aryEq(first), aryEq(second))).thenReturn(completed(2L));
+        when(commands.publish(aryEq(bytes(DefaultSessionService.REVOCATION_CHANNEL)), any(byte[].class)))
+                .thenReturn(completed(0L));
+
+        int revoked = sessionService.invalidateUserSessionsAsync("7").toCompletableFuture().join();
+
+        assertEquals(1, revoked);
+        verify(commands, times(2)).publish(aryEq(bytes(DefaultSessionService.REVOCATION_CHANNEL)),
+                any(byte[].class));
+        verify(commands, never()).scan();
     }
 
     @Test
     void validateSession_ShouldReturnTrue_WhenSessionExists() {
-        String sessionId = "valid-session-id";
-        String userId = "user123";
+        String sessionId = "AAAAAAAAAAAAAAAAAAAAAA";
 
-        when(commands.get("session:" + sessionId)).thenReturn(userId);
+        when(commands.<List<Object>>evalsha(anyString(), eq(ScriptOutputType.MULTI),
+                argThat((byte[][] keys) -> keys.length == 1 && keys[0].length == 17), aryEq(bytes("1800")),
+                aryEq(bytes("1740"))))
+                .thenReturn(completed(List.of(1L)));
 
         boolean isValid = sessionService.validateSession(sessionId);
 
         assertTrue(isValid);
-        verify(commands).expire(eq("session:" + sessionId), eq(1800L));
+        // Read and sliding refresh happen in the same script, which only writes when less than ttl - 60s remain
+        verify(commands, never()).get(any(byte[].class));
+        verify(commands, never()).expire(any(byte[].class), anyLong());
+    }
+
+    @Test
+    void validateSession_ShouldExtendUserIndex_WhenExpiryWasSlid() {
+        when(commands.<List<Object>>evalsha(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class),
+                any(byte[].class), any(byte[].class)))
+                .thenReturn(completed(List.of(new SessionValue("123").encode())));
+        when(commands.expire(aryEq(bytes("u:123")), eq(1800L))).thenReturn(completed(true));
+
+        assertTrue(sessionService.validateSession("AAAAAAAAAAAAAAAAAAAAAA"));
+        verify(commands).expire(aryEq(bytes("u:123")), eq(1800L));
+    }
+
+    @Test
+    void validateSession_ShouldKeepLegacyKey_ForUuidSessions() {
+        String sessionId = "3f0e6a8e-5b43-4c4e-9a65-0f1d1c8f2b11";
+        when(commands.<List<Object>>evalsha(anyString(), eq(ScriptOutputType.MULTI),
+                argThat((byte[][] keys) -> new String(keys[0], StandardCharsets.UTF_8).equals("session:" + sessionId)),
+                any(byte[].class), any(byte[].class)))
+                .thenReturn(completed(List.of(1L)));
+
+        assertTrue(sessionService.validateSession(sessionId));
     }
 
     @Test
     void validateSession_ShouldReturnFalse_WhenSessionDoesNotExist() {
         String sessionId = "invalid-session-id";
 
-        when(commands.get("session:" + sessionId)).thenReturn(null);
+        when(commands.<List<Object>>evalsha(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class),
+                any(byte[].class), any(byte[].class))).thenReturn(completed(List.of()));
 
-        boolean isValid = sessionService.validateSession(sessionId);
+        boolean isValid = sessionService.validateSessionAsync(sessionId).toCompletableFuture().join();
 
         assertFalse(isValid);
-        verify(commands, never()).expire(anyString(), anyLong());
+    }
+
+    @Test
+    void validateSession_ShouldSendScriptSource_WhenServerDoesNotKnowIt() {
+        String sessionId = "valid-session-id";
+        when(commands.<List<Object>>evalsha(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class),
+                any(byte[].class), any(byte[].class)))
+                .thenReturn(failed(new RedisNoScriptException("NOSCRIPT No matching script")));
+        when(commands.<List<Object>>eval(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class),
+                any(byte[].class), any(byte[].class))).thenReturn(completed(List.of(1L)));
+
+        assertTrue(sessionService.validateSession(sessionId));
+    }
+
+    @Test
+    void validateSessions_ShouldCheckAllSessionsInOneScriptCall() {
+        when(commands.<List<Object>>evalsha(anyString(), eq(ScriptOutputType.MULTI),
+                argThat((byte[][] keys) -> keys.length == 2), aryEq(bytes("1800")), aryEq(bytes("1740"))))
+                .thenReturn(completed(List.of(1L, 0L)));
+
+        List<Boolean> results = sessionService.validateSessionsAsync(List.of("a", "b")).toCompletableFuture().join();
+
+        assertEquals(List.of(true, false), results);
+    }
+
+    @Test
+    void validateSessions_ShouldSendOneScriptPerShard_AndKeepRequestOrder() {
+        @SuppressWarnings("unchecked")
+        RedisClusterAsyncCommands<byte[], byte[]> otherShard = mock(RedisClusterAsyncCommands.class);
+        when(redis.groupForMultiKey(anyList())).thenReturn(List.of(List.of(0, 2), List.of(1)));
+        when(redis.commands(aryEq(SessionKeys.key("b")))).thenReturn(otherShard);
+        when(commands.<List<Object>>evalsha(anyString(), eq(ScriptOutputType.MULTI),
+                argThat((byte[][] keys) -> keys.length == 2), any(byte[].class), any(byte[].class)))
+                .thenReturn(completed(List.of(0L, 1L)));
+        when(otherShard.<List<Object>>evalsha(anyString(), eq(ScriptOutputType.MULTI),
+                argThat((byte[][] keys) -> keys.length == 1), any(byte[].class), any(byte[].class)))
+                .thenReturn(completed(List.of(1L)));
+
+        List<Boolean> results = sessionService.validateSessionsAsync(List.of("a", "b", "c"))
+                .toCompletableFuture().join();
+
+        assertEquals(List.of(false, true, true), results);
+    }
+
+    @Test
+    void commands_ShouldBeTimedPerShard() {
+        when(redis.shardOf(any(byte[].class))).thenReturn("redis-1:6379");
+        when(commands.<List<Object>>evalsha(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class),
+                any(byte[].class), any(byte[].class))).thenReturn(completed(List.of(1L)));
+
+        sessionService.validateSession("a");
+        sessionService.validateSession("a");
+
+        assertEquals(2, meterRegistry.get("auth.redis.session.command")
+                .tag("command", "validate").tag("shard", "redis-1:6379").timer().count());
     }
 
     @Test
     void invalidateSession_ShouldDeleteKeyFromRedis() {
         String sessionId = "session-to-delete";
+        byte[] key = SessionKeys.key(sessionId);
+        when(commands.del(aryEq(key))).thenReturn(completed(1L));
+        when(commands.publish(aryEq(bytes(DefaultSessionService.REVOCATION_CHANNEL)), aryEq(bytes(sessionId))))
+                .thenReturn(completed(0L));
 
         sessionService.invalidateSession(sessionId);
 
-        verify(commands).del("session:" + sessionId);
+        verify(commands).del(aryEq(key));
+        verify(commands).publish(aryEq(bytes(DefaultSessionService.REVOCATION_CHANNEL)), aryEq(bytes(sessionId)));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static <T> RedisFuture<T> failed(Throwable error) {
+        AsyncCommand<String, String, T> future = new AsyncCommand<>(new Command<>(CommandType.EVALSHA, null));
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    static <T> RedisFuture<T> completed(T value) {
+        AsyncCommand<String, String, T> future = new AsyncCommand<>(new Command<>(CommandType.GET, null));
+        future.complete(value);
+        return future;
     }
 }
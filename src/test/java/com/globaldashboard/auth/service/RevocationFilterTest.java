@@ -0,0 +1,72 @@
+package com.globaldashboard.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationFilterTest {
+
+    private final StatelessSessionConfiguration configuration = new StatelessSessionConfiguration();
+
+    @Test
+    void revokedSessionIsReportedByFilterAndExactSet() {
+        RevocationFilter filter = new RevocationFilter(configuration, new SimpleMeterRegistry());
+
+        filter.revoke("revoked", System.currentTimeMillis());
+
+        assertTrue(filter.mightBeRevoked("revoked"));
+        assertTrue(filter.isRevoked("revoked"));
+        assertFalse(filter.isRevoked("other"));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredProbability() {
+        configuration.setExpectedRevocations(10_000);
+        RevocationFilter filter = new RevocationFilter(configuration, new SimpleMeterRegistry());
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10_000; i++) {
+            filter.revoke("revoked-" + i, now);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightBeRevoked("valid-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Two generations are checked, so allow for twice the configured 1%
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void revocationsSurviveOneRotationAndAreForgottenAfterRetention() {
+        configuration.setRetention(Duration.ofMillis(1));
+        RevocationFilter filter = new RevocationFilter(configuration, new SimpleMeterRegistry());
+
+        filter.revoke("revoked", System.currentTimeMillis() + 60_000);
+        filter.rotate();
+        assertTrue(filter.mightBeRevoked("revoked"));
+
+        filter.rotate();
+        assertFalse(filter.mightBeRevoked("revoked"));
+    }
+
+    @Test
+    void oldRevocationsAreIgnoredAndPruned() throws InterruptedException {
+        configuration.setRetention(Duration.ofMinutes(1));
+        RevocationFilter filter = new RevocationFilter(configuration, new SimpleMeterRegistry());
+
+        filter.revoke("ancient", System.currentTimeMillis() - Duration.ofHours(1).toMillis());
+        assertFalse(filter.isRevoked("ancient"));
+
+        // Forgotten 50ms from now
+        filter.revoke("expiring", System.currentTimeMillis() - Duration.ofMinutes(1).toMillis() + 50);
+        assertTrue(filter.isRevoked("expiring"));
+        Thread.sleep(100);
+        filter.prune();
+        assertFalse(filter.isRevoked("expiring"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.globaldashboard.auth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionEncodingTest {
+
+    @Test
+    void value_ShouldRoundTrip_WithNumericUserId() {
+        SessionValue value = new SessionValue("1234567");
+
+        assertEquals(value, SessionValue.decode(value.encode()));
+        // Format byte, 3 varint bytes
+        assertEquals(4, value.encode().length);
+    }
+
+    @Test
+    void value_ShouldRoundTrip_WithTextUserId() {
+        SessionValue value = new SessionValue("0042-ab");
+
+        assertEquals(value, SessionValue.decode(value.encode()));
+    }
+
+    @Test
+    void value_ShouldIgnoreUsernameStoredByEarlierVersions() {
+        byte[] withUsername = {1, (byte) 0x87, (byte) 0xAD, 0x4B, 'j', 'd', 'o', 'e'};
+
+        assertEquals(new SessionValue("1234567"), SessionValue.decode(withUsername));
+    }
+
+    @Test
+    void value_ShouldDecodeLegacyUserIdString() {
+        SessionValue legacy = SessionValue.decode("42".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("42", legacy.userId());
+    }
+
+    @Test
+    void key_ShouldBeCompact_ForGeneratedIds() {
+        String sessionId = SessionIdGenerator.next();
+
+        assertEquals(1 + SessionIdGenerator.ID_BYTES, SessionKeys.key(sessionId).length);
+        assertArrayEquals("session:legacy".getBytes(StandardCharsets.UTF_8), SessionKeys.key("legacy"));
+    }
+
+    /**
+     * Payload bytes stored per session, without Redis' own per-key overhead which is the same in both layouts.
+     */
+    @Test
+    void session_ShouldTakeLessThanHalfTheBytesOfTheUuidLayout() {
+        String userId = "1048576";
+
+        int before = ("session:" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8).length
+                + userId.getBytes(StandardCharsets.UTF_8).length;
+        int after = SessionKeys.key(SessionIdGenerator.next()).length + new SessionValue(userId).encode().length;
+
+        assertEquals(51, before);
+        // 17 key bytes, a format byte and 3 varint bytes
+        assertEquals(21, after);
+        assertTrue(after * 2 < before);
+    }
+}
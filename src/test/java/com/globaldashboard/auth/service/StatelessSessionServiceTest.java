@@ -0,0 +1,124 @@
+package com.globaldashboard.auth.service;
+
+import com.globaldashboard.auth.client.SessionRevocationProducer;
+import com.globaldashboard.auth.event.session.SessionRevokedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatelessSessionServiceTest {
+
+    @Mock
+    private DefaultSessionService delegate;
+
+    @Mock
+    private RevocationFilter revocationFilter;
+
+    @Mock
+    private SessionRevocationProducer revocationProducer;
+
+    private StatelessSessionService sessionService;
+
+    @BeforeEach
+    void setUp() {
+        sessionService = new StatelessSessionService(delegate, revocationFilter, revocationProducer,
+                new SessionConfiguration(), new StatelessSessionConfiguration(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void constructor_ShouldFail_WhenRevocationsAreForgottenBeforeTokensExpire() {
+        StatelessSessionConfiguration configuration = new StatelessSessionConfiguration();
+        configuration.setTokenLifetime(Duration.ofMinutes(10));
+        configuration.setRetention(Duration.ofMinutes(5));
+
+        assertThrows(IllegalStateException.class, () -> new StatelessSessionService(delegate, revocationFilter,
+                revocationProducer, new SessionConfiguration(), configuration, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void constructor_ShouldFail_WhenTokensOutliveTheirSession() {
+        StatelessSessionConfiguration configuration = new StatelessSessionConfiguration();
+        configuration.setTokenLifetime(Duration.ofHours(1));
+        configuration.setRetention(Duration.ofHours(2));
+
+        assertThrows(IllegalStateException.class, () -> new StatelessSessionService(delegate, revocationFilter,
+                revocationProducer, new SessionConfiguration(), configuration, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void validateSession_ShouldNotCallRedis_WhenFilterDoesNotMatch() {
+        when(revocationFilter.mightBeRevoked("s1")).thenReturn(false);
+
+        assertTrue(sessionService.validateSession("s1"));
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void validateSession_ShouldReject_WhenSessionIsInExactSet() {
+        when(revocationFilter.mightBeRevoked("s1")).thenReturn(true);
+        when(revocationFilter.isRevoked("s1")).thenReturn(true);
+
+        assertFalse(sessionService.validateSession("s1"));
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void validateSession_ShouldAskRedis_OnFalsePositive() {
+        when(revocationFilter.mightBeRevoked("s1")).thenReturn(true);
+        when(revocationFilter.isRevoked("s1")).thenReturn(false);
+        when(delegate.validateSessionAsync("s1")).thenReturn(completedFuture(true));
+
+        assertTrue(sessionService.validateSession("s1"));
+    }
+
+    @Test
+    void validateSessions_ShouldOnlySendFalsePositivesToRedis() {
+        when(revocationFilter.mightBeRevoked(anyString())).thenAnswer(call -> !call.getArgument(0).equals("clear"));
+        when(revocationFilter.isRevoked("revoked")).thenReturn(true);
+        when(revocationFilter.isRevoked("suspect")).thenReturn(false);
+        when(delegate.validateSessionsAsync(List.of("suspect"))).thenReturn(completedFuture(List.of(true)));
+
+        List<Boolean> results = sessionService.validateSessionsAsync(List.of("clear", "revoked", "suspect"))
+                .toCompletableFuture().join();
+
+        assertEquals(List.of(true, false, true), results);
+    }
+
+    @Test
+    void invalidateSession_ShouldRevokeLocallyAndReplicate() {
+        when(delegate.invalidateSessionAsync("s1")).thenReturn(completedFuture(null));
+
+        sessionService.invalidateSession("s1");
+
+        verify(revocationFilter).revoke(eq("s1"), anyLong());
+        verify(revocationProducer).sendRevocation(eq("s1"),
+                argThat((SessionRevokedEvent event) -> event.sessionId().equals("s1")));
+        verify(delegate).invalidateSessionAsync("s1");
+    }
+
+    @Test
+    void invalidateUserSessions_ShouldRevokeEachSessionLocallyAndReplicate() {
+        when(delegate.indexedSessionsAsync("42")).thenReturn(completedFuture(List.of("s1", "s2")));
+        when(delegate.invalidateUserSessionsAsync("42")).thenReturn(completedFuture(2));
+
+        int revoked = sessionService.invalidateUserSessionsAsync("42").toCompletableFuture().join();
+
+        assertEquals(2, revoked);
+        verify(revocationFilter).revoke(eq("s1"), anyLong());
+        verify(revocationFilter).revoke(eq("s2"), anyLong());
+        verify(revocationProducer, times(2)).sendRevocation(anyString(), any(SessionRevokedEvent.class));
+        // Pruning would drop sessions whose key expired while their token is still accepted here
+        verify(delegate, never()).listSessionsAsync(anyString());
+    }
+}